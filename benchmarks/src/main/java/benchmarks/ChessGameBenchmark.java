@@ -0,0 +1,67 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rules engine queries the server and client make after every move: validMoves for each of the mover's
+ * pieces and the checkmate/stalemate probes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChessGameBenchmark {
+    static final Map<String, String> POSITIONS = Map.of(
+            "startpos", Perft.POSITIONS.get("startpos"),
+            "kiwipete", Perft.POSITIONS.get("kiwipete"),
+            "foolsmate", "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w");
+
+    @Param({"startpos", "kiwipete", "foolsmate"})
+    public String position;
+
+    private ChessGame game;
+    private List<ChessPosition> moverPieces;
+
+    @Setup
+    public void setUp() {
+        game = ChessGame.fromFen(POSITIONS.get(position));
+        moverPieces = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    moverPieces.add(new ChessPosition(row, col));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void validMovesForMover(Blackhole blackhole) {
+        for (ChessPosition piece : moverPieces) {
+            blackhole.consume(game.validMoves(piece));
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return game.isInStalemate(game.getTeamTurn());
+    }
+}
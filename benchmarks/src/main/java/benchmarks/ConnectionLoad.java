@@ -0,0 +1,199 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import results.RegisterResult;
+import server.Server;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * How many clients the server keeps in flight at once in each {@link Server.ThreadMode}. Every client holds its
+ * own connection and creates games back to back; with the file store each create waits on a write-ahead log
+ * fsync, and with MySQL on a database round trip, so handlers spend their time blocked, which is where the modes
+ * differ. Prints throughput, latency, failures and the server's peak number of platform threads for each client
+ * count.
+ * <br/>
+ * The server runs in a JVM of its own, so the load generator's threads do not share its scheduler. Run it from
+ * the benchmark jar with
+ * <code>java -cp benchmarks/target/benchmarks-jar-with-dependencies.jar benchmarks.ConnectionLoad
+ * [platform|virtual] [clients...]</code>. The server uses the file store unless chess.dataAccess names another;
+ * for "mysql", put a db.properties on the classpath.
+ */
+public final class ConnectionLoad {
+    private static final Gson GSON = new Gson();
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    // user and game names must be unique, and a MySQL store keeps them from earlier runs
+    private static final String RUN = "load" + Long.toString(System.currentTimeMillis(), 36);
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private record Result(double throughput, double p50, double p99, int failed) {
+    }
+
+    private ConnectionLoad() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 1 && args[0].equals("serve")) {
+            serve(Server.ThreadMode.valueOf(args[1]));
+            return;
+        }
+        Server.ThreadMode mode = Server.ThreadMode.valueOf(args.length > 0 ? args[0].toUpperCase() : "VIRTUAL");
+        int[] clientCounts = args.length > 1
+                ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{50, 200, 800, 2000};
+
+        Process server = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dchess.dataAccess=" + System.getProperty("chess.dataAccess", "file"),
+                "-cp", System.getProperty("java.class.path"), ConnectionLoad.class.getName(), "serve", mode.name())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try (BufferedReader serverOut = new BufferedReader(new InputStreamReader(server.getInputStream()));
+             PrintWriter serverIn = new PrintWriter(server.getOutputStream(), true)) {
+            int port = Integer.parseInt(readReply(serverOut));
+            // retire pooled connections well before Jetty's idle timeout can close one under a request being sent
+            System.setProperty("jdk.httpclient.keepalive.timeout", "5");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(TIMEOUT).build();
+            String authToken = register(client, port);
+            System.out.printf("%-8s %8s %10s %10s %10s %8s %16s%n",
+                    "mode", "clients", "req/s", "p50 ms", "p99 ms", "failed", "platform threads");
+            for (int clients : clientCounts) {
+                serverIn.println("reset");
+                readReply(serverOut);
+                Result result = run(client, port, authToken, clients);
+                serverIn.println("peak");
+                System.out.printf("%-8s %8d %10.0f %10.1f %10.1f %8d %16s%n", mode.name().toLowerCase(), clients,
+                        result.throughput(), result.p50(), result.p99(), result.failed(), readReply(serverOut));
+            }
+            serverIn.println("stop");
+            server.waitFor();
+        } finally {
+            server.destroy();
+        }
+    }
+
+    /**
+     * The server side: prints its port, then answers "reset" and "peak" about its platform threads until "stop".
+     */
+    private static void serve(Server.ThreadMode mode) throws IOException {
+        Path directory = Files.createTempDirectory("chess-load");
+        System.setProperty("chess.dataDir", directory.toString());
+        // the server logs to stdout; keep that out of the replies the load generator reads
+        PrintWriter replies = new PrintWriter(new FileOutputStream(FileDescriptor.out), true);
+        System.setOut(System.err);
+
+        Server server = new Server();
+        replies.println("port " + server.run(0, mode));
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        BufferedReader commands = new BufferedReader(new InputStreamReader(System.in));
+        try {
+            String command;
+            while ((command = commands.readLine()) != null && !command.equals("stop")) {
+                if (command.equals("reset")) {
+                    threads.resetPeakThreadCount();
+                    replies.println("reset ok");
+                } else if (command.equals("peak")) {
+                    replies.println("peak " + threads.getPeakThreadCount());
+                }
+            }
+        } finally {
+            server.stop();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static String readReply(BufferedReader serverOut) throws IOException {
+        String line = serverOut.readLine();
+        if (line == null) {
+            throw new IOException("Server exited");
+        }
+        return line.substring(line.indexOf(' ') + 1);
+    }
+
+    private static String register(HttpClient client, int port) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/user"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + RUN + "\",\"password\":\"load\",\"email\":\"load\"}"))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        return GSON.fromJson(response.body(), RegisterResult.class).authToken();
+    }
+
+    private static Result run(HttpClient client, int port, String authToken, int clients) {
+        List<Long> latencies = new ArrayList<>();
+        AtomicInteger failed = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            running.add(createGames(client, port, authToken, REQUESTS_PER_CLIENT, latencies, failed));
+        }
+        CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sorted;
+        synchronized (latencies) {
+            sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+        return new Result(sorted.length / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99), failed.get());
+    }
+
+    /**
+     * One client: count creates, each sent once the previous one answered.
+     */
+    private static CompletableFuture<Void> createGames(HttpClient client, int port, String authToken,
+                                                       int count, List<Long> latencies, AtomicInteger failed) {
+        if (count == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/game"))
+                .timeout(TIMEOUT)
+                .header("authorization", authToken)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"gameName\":\"" + RUN + "-" + SEQUENCE.incrementAndGet() + "\"}"))
+                .build();
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (error != null || response.statusCode() != 200) {
+                        failed.incrementAndGet();
+                    } else {
+                        synchronized (latencies) {
+                            latencies.add(System.nanoTime() - sent);
+                        }
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> createGames(client, port, authToken, count - 1, latencies, failed));
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e6;
+    }
+}
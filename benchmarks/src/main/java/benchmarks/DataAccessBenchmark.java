@@ -0,0 +1,61 @@
+package benchmarks;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.InMemoryDataAccess;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InMemoryDataAccess game reads and updates with several threads hitting the same store, the way
+ * Spark's request threads and the websocket handler share it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class DataAccessBenchmark {
+    private static final byte[] STATE = new ChessGame().toBytes();
+    private static final int GAMES = 1000;
+
+    private InMemoryDataAccess dataAccess;
+
+    @Setup
+    public void setUp() throws DataAccessException {
+        dataAccess = new InMemoryDataAccess();
+        for (int i = 0; i < GAMES; i++) {
+            dataAccess.createGame(new GameData(0, "game" + i, null, null, STATE));
+        }
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public GameData getGame() throws DataAccessException {
+        return dataAccess.getGame(randomGameID());
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void updateGame() throws DataAccessException {
+        int gameID = randomGameID();
+        dataAccess.updateGame(new GameData(gameID, "game" + (gameID - 1), "white", "black", STATE));
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(4)
+    public GameData getGameOnly() throws DataAccessException {
+        return dataAccess.getGame(randomGameID());
+    }
+
+    private static int randomGameID() {
+        return ThreadLocalRandom.current().nextInt(GAMES) + 1;
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.FileDataAccess;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Latency of persisting one move through FileDataAccess, i.e. one write-ahead log record and its fsync, with a
+ * single writer and with eight writers sharing syncs. Compare with the per-move time of MySQLDataAccess.appendMoves
+ * on the same box.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileDataAccessBenchmark {
+    private static final byte[] STATE = new ChessGame().toBytes();
+    private static final int GAMES = 100;
+    private static final List<String> MOVE = List.of("e2e4");
+
+    private Path directory;
+    private FileDataAccess dataAccess;
+
+    @Setup
+    public void setUp() throws DataAccessException, IOException {
+        directory = Files.createTempDirectory("chess-wal");
+        dataAccess = new FileDataAccess(directory);
+        for (int i = 0; i < GAMES; i++) {
+            dataAccess.createGame(new GameData(0, "game" + i, null, null, STATE));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws DataAccessException, IOException {
+        dataAccess.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void appendMove() throws DataAccessException {
+        dataAccess.appendMoves(randomGameID(), MOVE);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void appendMoveConcurrent() throws DataAccessException {
+        dataAccess.appendMoves(randomGameID(), MOVE);
+    }
+
+    private static int randomGameID() {
+        return ThreadLocalRandom.current().nextInt(GAMES) + 1;
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.Perft;
+import com.google.gson.Gson;
+import dataaccess.DataAccessException;
+import dataaccess.InMemoryDataAccess;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+import service.GameService;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The binary codec that GameService writes game snapshots with, next to the Gson encoding it replaced and the
+ * FEN codec for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameSerializationBenchmark {
+    @Param({"startpos", "kiwipete"})
+    public String position;
+
+    private final Gson gson = new Gson();
+    private ChessGame game;
+    private String json;
+    private String fen;
+    private byte[] bytes;
+    private final StringBuilder fenBuffer = new StringBuilder(96);
+    private GameService gameService;
+    private int gameID;
+
+    @Setup
+    public void setUp() throws DataAccessException {
+        game = ChessGame.fromFen(Perft.POSITIONS.get(position));
+        json = gson.toJson(game);
+        fen = game.toFen();
+        bytes = game.toBytes();
+        gameService = new GameService(new InMemoryDataAccess());
+        GameData gameData = gameService.createGame("benchmark");
+        gameID = gameData.getGameID();
+        gameService.saveGame(gameID, game);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public StringBuilder toFen() throws IOException {
+        fenBuffer.setLength(0);
+        game.toFen(fenBuffer);
+        return fenBuffer;
+    }
+
+    @Benchmark
+    public ChessGame fromFen() {
+        return ChessGame.fromFen(fen);
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return game.toBytes();
+    }
+
+    @Benchmark
+    public ChessGame fromBytes() {
+        return ChessGame.fromBytes(bytes);
+    }
+
+    @Benchmark
+    public ChessGame serviceSaveThenLoad() throws DataAccessException {
+        gameService.saveGame(gameID, game);
+        return gameService.loadGame(gameID);
+    }
+}
@@ -0,0 +1,37 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChessGame.makeMove, including its legality check. Four knight moves bring the start position back to
+ * itself, so every invocation plays from the same board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MakeMoveBenchmark {
+    private final ChessGame game = new ChessGame();
+    private final ChessMove[] moves = {
+            new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null),
+            new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null),
+            new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null),
+            new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null)};
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public ChessGame makeMove() throws InvalidMoveException {
+        for (ChessMove move : moves) {
+            game.makeMove(move);
+        }
+        return game;
+    }
+}
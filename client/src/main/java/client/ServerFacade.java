@@ -4,6 +4,7 @@ import chess.ChessGame;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import model.GameData;
 import requests.*;
 import chess.ChessMove;
 import results.*;
@@ -16,6 +17,8 @@ import java.io.OutputStreamWriter;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 @ClientEndpoint
 public class ServerFacade {
@@ -99,8 +102,16 @@ public class ServerFacade {
     }
 
     public ListGamesResult listGames() throws Exception {
-        JsonObject response = sendRequest("/game", "GET", null);
-        return gson.fromJson(response, ListGamesResult.class);
+        // the server pages the list; the UI numbers every game, so collect all pages
+        List<GameData> games = new ArrayList<>();
+        Integer cursor = null;
+        do {
+            JsonObject response = sendRequest(cursor == null ? "/game" : "/game?cursor=" + cursor, "GET", null);
+            ListGamesResult page = gson.fromJson(response, ListGamesResult.class);
+            games.addAll(page.games());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return new ListGamesResult(games);
     }
 
     public void joinGame(int gameID, String playerColor) throws Exception {
@@ -147,7 +147,7 @@ public class GameplayUI {
         for (int row = startRow; row != endRow + rowStep; row += rowStep) {
             System.out.print(row); // Print row label
             for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
+                ChessPosition position = ChessPosition.of(row, col);
                 ChessPiece piece = board.getPiece(position);
                 boolean isWhiteSquare = isWhiteBottom ? (row + col) % 2 != 0 : (row + col) % 2 == 0;
 
@@ -207,7 +207,7 @@ public class GameplayUI {
     private ChessPosition parsePosition(String pos) {
         int col = pos.charAt(0) - 'a' + 1;
         int row = Character.getNumericValue(pos.charAt(1));
-        return new ChessPosition(row, col);
+        return ChessPosition.of(row, col);
     }
 
     private void highlightMoves(ChessPosition position, Collection<ChessMove> legalMoves) {
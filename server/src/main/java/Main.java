@@ -3,9 +3,11 @@ import server.Server;
 
 public class Main {
     public static void main(String[] args) {
-        var piece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        var piece = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         System.out.println("♕ 240 Chess Server: " + piece);
         Server server = new Server();
+        // a clean shutdown (Ctrl-C, SIGTERM) still writes every acknowledged move
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
         server.run(8080);
     }
 }
\ No newline at end of file
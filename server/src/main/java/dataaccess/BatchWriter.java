@@ -0,0 +1,273 @@
+package dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collects writes from many callers and commits them together. A background thread takes whatever has queued,
+ * waiting up to the flush interval for more or until the batch is full, and writes the batch in one transaction
+ * with one {@code addBatch}/{@code executeBatch} round per statement. Each caller blocks until the transaction
+ * holding its write has committed, and gets its own failure if its write did not apply. A caller waits at most the
+ * write timeout; after that its write may still be committed later.
+ * <br/>
+ * Writes to the same game keep their order: if a game is written by a second statement while the first is still
+ * batched, the pending batches are executed before it is added.
+ */
+public class BatchWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchWriter.class);
+
+    @FunctionalInterface
+    interface ConnectionSource {
+        Connection get() throws DataAccessException;
+    }
+
+    @FunctionalInterface
+    interface Binder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    public record Settings(int maxBatchSize, long flushIntervalMillis, long writeTimeoutMillis) {
+    }
+
+    public record Stats(long flushes, long writes, long rolledBack, double averageBatchSize, int maxBatchSize,
+                        double averageFlushMillis, double maxFlushMillis) {
+    }
+
+    /**
+     * One caller's write: one or more parameter rows for sql, all for gameID. If notFoundMessage is set, a write
+     * whose rows all match nothing fails with it.
+     */
+    private record Write(String sql, int gameID, List<Binder> rows, String notFoundMessage,
+                         CompletableFuture<Void> done) {
+    }
+
+    private final ConnectionSource connections;
+    private final Settings settings;
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private long flushes;
+    private long writes;
+    private long rolledBack;
+    private int maxBatchSize;
+    private long flushNanos;
+    private long maxFlushNanos;
+
+    BatchWriter(ConnectionSource connections, Settings settings) {
+        if (settings.maxBatchSize() < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.connections = connections;
+        this.settings = settings;
+        flusher = new Thread(this::run, "jdbc-batch-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queues the rows and waits for the transaction that writes them.
+     *
+     * @param notFoundMessage if non-null, the write fails with this message when no row was affected
+     */
+    void write(String sql, int gameID, List<Binder> rows, String notFoundMessage) throws DataAccessException {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Write write = new Write(sql, gameID, rows, notFoundMessage, done);
+        queue.add(write);
+        // the flusher may already have stopped; if nobody has taken the write, nobody will
+        if ((!running || !flusher.isAlive()) && queue.remove(write)) {
+            throw new DataAccessException("Batch writer is closed");
+        }
+        try {
+            done.get(settings.writeTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for batched write", e);
+        } catch (TimeoutException e) {
+            if (queue.remove(write)) {
+                throw new DataAccessException("Timed out waiting for batched write");
+            }
+            // already taken by a flush that has not finished, so it may yet commit
+            throw new DataAccessException("Timed out waiting for batched write; it may still be applied");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DataAccessException cause) {
+                throw new DataAccessException(cause.getMessage(), cause.getCause());
+            }
+            throw new DataAccessException("Batched write failed", e.getCause());
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(flushes, writes, rolledBack, flushes == 0 ? 0 : (double) writes / flushes, maxBatchSize,
+                flushes == 0 ? 0 : flushNanos / 1e6 / flushes, maxFlushNanos / 1e6);
+    }
+
+    /**
+     * Writes everything already queued, then stops the background thread. Later writes fail.
+     */
+    public void close() {
+        running = false;
+        try {
+            flusher.join(settings.flushIntervalMillis() + 30_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // anything queued after the last flush
+        Write write;
+        while ((write = queue.poll()) != null) {
+            write.done().completeExceptionally(new DataAccessException("Batch writer is closed"));
+        }
+    }
+
+    private void run() {
+        List<Write> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Write first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.flushIntervalMillis());
+                while (batch.size() < settings.maxBatchSize()) {
+                    queue.drainTo(batch, settings.maxBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= settings.maxBatchSize() || remaining <= 0) {
+                        break;
+                    }
+                    Write next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // close() lets the loop run dry instead
+            } catch (Throwable e) {
+                // fail this batch's callers but keep flushing; a dead flusher would leave every later write waiting
+                LOGGER.error("Batch flush failed", e);
+                for (Write write : batch) {
+                    write.done().completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Write> batch) {
+        long start = System.nanoTime();
+        Map<Write, String> failures = new IdentityHashMap<>();
+        try {
+            execute(batch, failures);
+        } catch (DataAccessException | SQLException e) {
+            synchronized (this) {
+                rolledBack++;
+            }
+            if (batch.size() == 1) {
+                LOGGER.error("Batched write failed: {}", e.getMessage());
+                batch.get(0).done().completeExceptionally(e instanceof DataAccessException dataAccessError ? dataAccessError
+                        : new DataAccessException("Batched write failed", e));
+                return;
+            }
+            // one bad write must not fail everyone else's: retry each in its own transaction
+            LOGGER.warn("Batch of {} writes rolled back, retrying one by one: {}", batch.size(), e.getMessage());
+            for (Write write : batch) {
+                flush(List.of(write));
+            }
+            return;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        synchronized (this) {
+            flushes++;
+            writes += batch.size();
+            maxBatchSize = Math.max(maxBatchSize, batch.size());
+            flushNanos += elapsed;
+            maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        }
+        LOGGER.debug("Flushed {} writes in {} us", batch.size(), elapsed / 1000);
+        for (Write write : batch) {
+            String failure = failures.get(write);
+            if (failure == null) {
+                write.done().complete(null);
+            } else {
+                write.done().completeExceptionally(new DataAccessException(failure));
+            }
+        }
+    }
+
+    private void execute(List<Write> batch, Map<Write, String> failures) throws DataAccessException, SQLException {
+        try (Connection conn = connections.get()) {
+            conn.setAutoCommit(false);
+            Map<String, PreparedStatement> statements = new HashMap<>();
+            Map<String, List<Write>> pending = new LinkedHashMap<>();
+            Map<Integer, String> touched = new HashMap<>();
+            try {
+                for (Write write : batch) {
+                    String previous = touched.get(write.gameID());
+                    if (previous != null && !previous.equals(write.sql())) {
+                        executePending(statements, pending, failures);
+                        touched.clear();
+                    }
+                    PreparedStatement stmt = statements.get(write.sql());
+                    if (stmt == null) {
+                        stmt = conn.prepareStatement(write.sql());
+                        statements.put(write.sql(), stmt);
+                    }
+                    for (Binder row : write.rows()) {
+                        row.bind(stmt);
+                        stmt.addBatch();
+                    }
+                    pending.computeIfAbsent(write.sql(), sql -> new ArrayList<>()).add(write);
+                    touched.put(write.gameID(), write.sql());
+                }
+                executePending(statements, pending, failures);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                for (PreparedStatement stmt : statements.values()) {
+                    stmt.close();
+                }
+            }
+        }
+    }
+
+    private static void executePending(Map<String, PreparedStatement> statements, Map<String, List<Write>> pending,
+                                       Map<Write, String> failures) throws SQLException {
+        for (Map.Entry<String, List<Write>> entry : pending.entrySet()) {
+            int[] counts = statements.get(entry.getKey()).executeBatch();
+            int i = 0;
+            for (Write write : entry.getValue()) {
+                boolean affected = false;
+                for (int row = 0; row < write.rows().size(); row++, i++) {
+                    // drivers that rewrite batches report SUCCESS_NO_INFO, which is not 0, instead of a count
+                    affected |= i >= counts.length || counts[i] != 0;
+                }
+                if (!affected && write.notFoundMessage() != null) {
+                    failures.put(write, write.notFoundMessage());
+                }
+            }
+        }
+        pending.clear();
+    }
+}
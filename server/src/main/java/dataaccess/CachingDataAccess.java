@@ -0,0 +1,229 @@
+package dataaccess;
+
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-through cache of game rows in front of another DataAccessInterface. Reads of a cached game never reach
+ * the delegate, and every createGame/updateGame is written to the delegate before the cache is updated, so the
+ * delegate always holds the latest state. Writes to one game hold its write lock from the delegate write through the
+ * cache update, so two concurrent updates cannot reach the cache in the opposite order to the delegate. Games are
+ * evicted least recently used once capacity is reached.
+ * <br/>
+ * GameData is mutable, so the cache hands out and stores copies; a caller editing the object it got back does
+ * not change what other callers see until it calls updateGame.
+ */
+public class CachingDataAccess implements DataAccessInterface {
+    private static final int WRITE_LOCK_STRIPES = 64;
+
+    private final DataAccessInterface delegate;
+    private final Map<Integer, GameData> games;
+    private final ReentrantLock[] writeLocks = new ReentrantLock[WRITE_LOCK_STRIPES];
+    // bumped by every write and invalidation so a load that raced with one does not put a stale row back
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CachingDataAccess(DataAccessInterface delegate, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.delegate = delegate;
+        this.games = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, GameData> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try {
+            delegate.clear();
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        delegate.createUser(user);
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        return delegate.getUser(username);
+    }
+
+    @Override
+    public void createGame(GameData game) throws DataAccessException {
+        delegate.createGame(game);
+        synchronized (this) {
+            games.put(game.getGameID(), copyOf(game));
+        }
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        long loadGeneration;
+        synchronized (this) {
+            GameData cached = games.get(gameID);
+            if (cached != null) {
+                hits++;
+                return copyOf(cached);
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        GameData loaded = delegate.getGame(gameID);
+        if (loaded != null) {
+            synchronized (this) {
+                // a write or invalidation that finished while we were loading may have changed the row
+                if (generation == loadGeneration) {
+                    games.putIfAbsent(gameID, copyOf(loaded));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public List<GameData> listGames() throws DataAccessException {
+        return delegate.listGames();
+    }
+
+    @Override
+    public List<GameData> listGameSummaries(int afterGameID, int limit, boolean openSeatsOnly, String player)
+            throws DataAccessException {
+        return delegate.listGameSummaries(afterGameID, limit, openSeatsOnly, player);
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        ReentrantLock writeLock = writeLock(game.getGameID());
+        writeLock.lock();
+        try {
+            try {
+                delegate.updateGame(game);
+            } catch (DataAccessException | RuntimeException e) {
+                // the row may or may not have changed; let the next read go to the delegate
+                invalidate(game.getGameID());
+                throw e;
+            }
+            synchronized (this) {
+                games.put(game.getGameID(), copyOf(game));
+                generation++;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void appendMoves(int gameID, List<String> moves) throws DataAccessException {
+        delegate.appendMoves(gameID, moves);
+    }
+
+    @Override
+    public List<String> getMovesSinceSnapshot(int gameID) throws DataAccessException {
+        return delegate.getMovesSinceSnapshot(gameID);
+    }
+
+    @Override
+    public void saveSnapshot(int gameID, byte[] gameState) throws DataAccessException {
+        ReentrantLock writeLock = writeLock(gameID);
+        writeLock.lock();
+        try {
+            try {
+                delegate.saveSnapshot(gameID, gameState);
+            } catch (DataAccessException | RuntimeException e) {
+                invalidate(gameID);
+                throw e;
+            }
+            synchronized (this) {
+                GameData cached = games.get(gameID);
+                if (cached != null) {
+                    cached.setGameState(gameState);
+                }
+                generation++;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        delegate.createAuth(auth);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        return delegate.getAuth(authToken);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        delegate.deleteAuth(authToken);
+    }
+
+    @Override
+    public void deleteAuthByUsername(String username) throws DataAccessException {
+        delegate.deleteAuthByUsername(username);
+    }
+
+    @Override
+    public int getLatestGameID() throws DataAccessException {
+        return delegate.getLatestGameID();
+    }
+
+    public synchronized void invalidate(int gameID) {
+        games.remove(gameID);
+        generation++;
+    }
+
+    public synchronized void invalidateAll() {
+        games.clear();
+        generation++;
+    }
+
+    public synchronized int size() {
+        return games.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private ReentrantLock writeLock(int gameID) {
+        return writeLocks[Math.floorMod(gameID, writeLocks.length)];
+    }
+
+    private static GameData copyOf(GameData game) {
+        return new GameData(game.getGameID(), game.getGameName(), game.getWhiteUsername(),
+                game.getBlackUsername(), game.getGameState());
+    }
+}
@@ -0,0 +1,292 @@
+package dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of JDBC connections. Borrowed connections are proxies whose close() hands the physical
+ * connection back to the pool, so callers keep using try-with-resources exactly as with DriverManager.
+ * <br/>
+ * At most maxSize connections exist at once; a caller that finds them all in use waits up to the
+ * acquire timeout. Connections idle longer than the idle timeout are closed down to minSize, and a
+ * connection that has sat idle for more than the validation interval is checked with the validation
+ * query before it is handed out.
+ */
+public class ConnectionPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPool.class);
+
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    record Settings(int minSize, int maxSize, long idleTimeoutMillis, long acquireTimeoutMillis,
+                    long validationIntervalMillis, String validationQuery) {
+    }
+
+    public record Stats(int total, int idle, int active, int waiting, long created, long closed,
+                        long acquired, long timeouts, long validationFailures, double averageAcquireMicros) {
+    }
+
+    private record Idle(Connection connection, long since) {
+    }
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+    // most recently returned first, so a quiet pool lets the connections at the tail age out
+    private final Deque<Idle> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private int total;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong closed = new AtomicLong();
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong acquireNanos = new AtomicLong();
+
+    ConnectionPool(ConnectionFactory factory, Settings settings) {
+        if (settings.minSize() < 0 || settings.maxSize() < 1 || settings.minSize() > settings.maxSize()) {
+            throw new IllegalArgumentException("Invalid pool size " + settings.minSize() + ".." + settings.maxSize());
+        }
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(settings.idleTimeoutMillis() / 2, 1000);
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens connections until minSize exist. Failures are logged and left for later borrows to retry.
+     */
+    void fill() {
+        while (true) {
+            synchronized (this) {
+                if (total >= settings.minSize()) {
+                    return;
+                }
+                total++;
+            }
+            try {
+                Connection connection = factory.open();
+                created.incrementAndGet();
+                synchronized (this) {
+                    idle.addLast(new Idle(connection, System.currentTimeMillis()));
+                }
+            } catch (SQLException e) {
+                synchronized (this) {
+                    total--;
+                }
+                LOGGER.warn("Unable to pre-open pooled connection: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.acquireTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + settings.acquireTimeoutMillis()
+                        + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+
+        try {
+            Connection connection = takeIdle();
+            if (connection == null) {
+                synchronized (this) {
+                    total++;
+                }
+                try {
+                    connection = factory.open();
+                } catch (SQLException e) {
+                    synchronized (this) {
+                        total--;
+                    }
+                    throw e;
+                }
+                created.incrementAndGet();
+            }
+            acquired.incrementAndGet();
+            acquireNanos.addAndGet(System.nanoTime() - start);
+            return wrap(connection);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    Stats stats() {
+        int idleCount;
+        int totalCount;
+        synchronized (this) {
+            idleCount = idle.size();
+            totalCount = total;
+        }
+        long count = acquired.get();
+        return new Stats(totalCount, idleCount, totalCount - idleCount, permits.getQueueLength(),
+                created.get(), closed.get(), count, timeouts.get(), validationFailures.get(),
+                count == 0 ? 0 : acquireNanos.get() / 1000.0 / count);
+    }
+
+    /**
+     * Closes every idle connection. Borrowed connections still come back to the pool as usual, and new
+     * ones are opened on demand.
+     */
+    void closeIdle() {
+        Deque<Idle> drained;
+        synchronized (this) {
+            drained = new ArrayDeque<>(idle);
+            total -= idle.size();
+            idle.clear();
+        }
+        drained.forEach(entry -> discard(entry.connection()));
+    }
+
+    private Connection takeIdle() {
+        while (true) {
+            Idle entry;
+            synchronized (this) {
+                entry = idle.pollFirst();
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.since() < settings.validationIntervalMillis()
+                    || isValid(entry.connection())) {
+                return entry.connection();
+            }
+            validationFailures.incrementAndGet();
+            synchronized (this) {
+                total--;
+            }
+            discard(entry.connection());
+        }
+    }
+
+    private boolean isValid(Connection connection) {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.setQueryTimeout(Math.max(1, (int) (settings.acquireTimeoutMillis() / 1000)));
+            stmt.execute(settings.validationQuery());
+            return true;
+        } catch (SQLException e) {
+            LOGGER.warn("Pooled connection failed validation: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void release(Connection connection) {
+        try {
+            boolean reusable = !connection.isClosed();
+            if (reusable && !connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (reusable) {
+                synchronized (this) {
+                    idle.addFirst(new Idle(connection, System.currentTimeMillis()));
+                }
+            } else {
+                synchronized (this) {
+                    total--;
+                }
+                closed.incrementAndGet();
+            }
+        } catch (SQLException e) {
+            LOGGER.warn("Dropping pooled connection that could not be reset: {}", e.getMessage());
+            synchronized (this) {
+                total--;
+            }
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - settings.idleTimeoutMillis();
+        Deque<Connection> expired = new ArrayDeque<>();
+        synchronized (this) {
+            Iterator<Idle> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext() && total > settings.minSize()) {
+                Idle entry = oldestFirst.next();
+                if (entry.since() > cutoff) {
+                    break;
+                }
+                oldestFirst.remove();
+                total--;
+                expired.add(entry.connection());
+            }
+        }
+        expired.forEach(this::discard);
+        if (!expired.isEmpty()) {
+            LOGGER.debug("Evicted {} idle connections", expired.size());
+        }
+    }
+
+    private void discard(Connection connection) {
+        closed.incrementAndGet();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.debug("Error closing pooled connection: {}", e.getMessage());
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        boolean[] returned = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!returned[0]) {
+                                returned[0] = true;
+                                release(connection);
+                            }
+                            return null;
+                        case "isClosed":
+                            return returned[0] || connection.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Pooled" + connection;
+                        default:
+                            if (returned[0]) {
+                                throw new SQLException("Connection has been returned to the pool");
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+}
@@ -19,8 +19,30 @@ public interface DataAccessInterface {
 
     List<GameData> listGames() throws DataAccessException;
 
+    /**
+     * Up to limit games with an ID above afterGameID, in ID order, without their game state. openSeatsOnly keeps
+     * games missing a player; a non-null player keeps games that user plays in.
+     */
+    List<GameData> listGameSummaries(int afterGameID, int limit, boolean openSeatsOnly, String player)
+            throws DataAccessException;
+
     void updateGame(GameData game) throws DataAccessException;
 
+    /**
+     * Appends moves, in coordinate notation, to the game's move log.
+     */
+    void appendMoves(int gameID, List<String> moves) throws DataAccessException;
+
+    /**
+     * Moves logged since the game's last snapshot, oldest first.
+     */
+    List<String> getMovesSinceSnapshot(int gameID) throws DataAccessException;
+
+    /**
+     * Replaces the game's stored state with a snapshot that already includes every logged move.
+     */
+    void saveSnapshot(int gameID, byte[] gameState) throws DataAccessException;
+
     void createAuth(AuthData auth) throws DataAccessException;
 
     AuthData getAuth(String authToken) throws DataAccessException;
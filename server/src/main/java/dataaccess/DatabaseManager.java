@@ -11,6 +11,8 @@ public class DatabaseManager {
     private static final String USER;
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
+    private static final ConnectionPool POOL;
+    private static final BatchWriter.Settings BATCH_SETTINGS;
 
     /*
      * Load the database information for the db.properties file.
@@ -28,6 +30,19 @@ public class DatabaseManager {
                 var host = props.getProperty("db.host");
                 var port = Integer.parseInt(props.getProperty("db.port"));
                 CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+
+                POOL = new ConnectionPool(DatabaseManager::openConnection, new ConnectionPool.Settings(
+                        Integer.parseInt(props.getProperty("db.pool.minSize", "2")),
+                        Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                        Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "300000")),
+                        Long.parseLong(props.getProperty("db.pool.acquireTimeoutMillis", "5000")),
+                        Long.parseLong(props.getProperty("db.pool.validationIntervalMillis", "30000")),
+                        props.getProperty("db.pool.validationQuery", "SELECT 1")));
+                // 0 turns batching off
+                BATCH_SETTINGS = new BatchWriter.Settings(
+                        Integer.parseInt(props.getProperty("db.batch.maxSize", "256")),
+                        Long.parseLong(props.getProperty("db.batch.flushIntervalMillis", "5")),
+                        Long.parseLong(props.getProperty("db.batch.writeTimeoutMillis", "30000")));
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
@@ -59,9 +74,15 @@ public class DatabaseManager {
                     "game_name VARCHAR(255) NOT NULL," +
                     "white_username VARCHAR(255)," +
                     "black_username VARCHAR(255)," +
-                    "game_state TEXT" +
+                    "game_state MEDIUMBLOB," +
+                    "snapshot_move_id INT NOT NULL DEFAULT 0" +
                     ")";
             stmt.executeUpdate(createGamesTable);
+            addColumnIfMissing(stmt, "games", "snapshot_move_id", "INT NOT NULL DEFAULT 0");
+            // game_state used to hold Gson JSON as TEXT; the bytes carry over and still decode as legacy JSON
+            changeColumnType(stmt, "games", "game_state", "text", "MEDIUMBLOB");
+            addIndexIfMissing(stmt, "games", "games_white_username", "white_username");
+            addIndexIfMissing(stmt, "games", "games_black_username", "black_username");
 
             String createAuthTokensTable = "CREATE TABLE IF NOT EXISTS auth_tokens (" +
                     "auth_token VARCHAR(255) PRIMARY KEY," +
@@ -82,14 +103,53 @@ public class DatabaseManager {
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
+        POOL.fill();
+    }
+
+    // tables created by earlier versions of the server predate some columns
+    private static void addColumnIfMissing(Statement stmt, String table, String column, String definition) throws SQLException {
+        String exists = "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = '" + DATABASE_NAME +
+                "' AND TABLE_NAME = '" + table + "' AND COLUMN_NAME = '" + column + "'";
+        try (var rs = stmt.executeQuery(exists)) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                return;
+            }
+        }
+        stmt.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+    }
+
+    private static void changeColumnType(Statement stmt, String table, String column, String fromType, String definition)
+            throws SQLException {
+        String current = "SELECT DATA_TYPE FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = '" + DATABASE_NAME +
+                "' AND TABLE_NAME = '" + table + "' AND COLUMN_NAME = '" + column + "'";
+        try (var rs = stmt.executeQuery(current)) {
+            if (!rs.next() || !fromType.equalsIgnoreCase(rs.getString(1))) {
+                return;
+            }
+        }
+        stmt.executeUpdate("ALTER TABLE " + table + " MODIFY COLUMN " + column + " " + definition);
+    }
+
+    private static void addIndexIfMissing(Statement stmt, String table, String index, String column) throws SQLException {
+        String exists = "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = '" + DATABASE_NAME +
+                "' AND TABLE_NAME = '" + table + "' AND INDEX_NAME = '" + index + "'";
+        try (var rs = stmt.executeQuery(exists)) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                return;
+            }
+        }
+        stmt.executeUpdate("CREATE INDEX " + index + " ON " + table + " (" + column + ")");
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
+     * Borrows a connection to the database from the pool, with the catalog set from
+     * db.properties. Connections to the database should be short-lived, and you must
+     * close the connection when you are done with it; closing hands it back to the pool.
      * The easiest way to do that is with a try-with-resource block.
      * <br/>
+     * The pool is sized by the optional db.pool.* properties (minSize, maxSize,
+     * idleTimeoutMillis, acquireTimeoutMillis, validationIntervalMillis, validationQuery).
+     * <br/>
      * <code>
      * try (var conn = DbInfo.getConnection(databaseName)) {
      * // execute SQL statements.
@@ -97,11 +157,37 @@ public class DatabaseManager {
      */
     public static Connection getConnection() throws DataAccessException {
         try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            conn.setCatalog(DATABASE_NAME);
-            return conn;
+            return POOL.borrow();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
     }
+
+    /**
+     * Current pool counters: connections open, idle and in use, callers waiting, and totals since startup.
+     */
+    public static ConnectionPool.Stats poolStats() {
+        return POOL.stats();
+    }
+
+    /**
+     * How game writes are batched, from the optional db.batch.* properties (maxSize, flushIntervalMillis,
+     * writeTimeoutMillis); null if db.batch.maxSize is 0.
+     */
+    public static BatchWriter.Settings batchSettings() {
+        return BATCH_SETTINGS.maxBatchSize() > 0 ? BATCH_SETTINGS : null;
+    }
+
+    /**
+     * Closes the pooled connections nobody is using, e.g. when the server stops.
+     */
+    public static void closeIdleConnections() {
+        POOL.closeIdle();
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+        conn.setCatalog(DATABASE_NAME);
+        return conn;
+    }
 }
@@ -0,0 +1,789 @@
+package dataaccess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded store for running without MySQL. All data is held in an {@link InMemoryDataAccess} and made durable by
+ * an append-only write-ahead log in the data directory: every successful change is appended as one record, and
+ * the call returns once the record has been fsynced. Callers that arrive while a sync is running wait for the next
+ * one, so one fsync covers every record written in the meantime (group commit).
+ * <br/>
+ * The log is a series of segment files, each named after the first record it holds. Every {@code snapshotInterval}
+ * records the store starts a new segment and writes everything up to that point to a snapshot file in the
+ * background; once the snapshot is in place, the older segments are deleted. On startup the snapshot is loaded and
+ * the segments replayed on top of it; a record torn by a crash fails its checksum and is cut off together with
+ * everything after it.
+ * <br/>
+ * A change is applied in memory only after its record is in the log, so reads never see a change the log lost. They
+ * may see one whose writer is still waiting for its sync.
+ */
+public class FileDataAccess implements DataAccessInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileDataAccess.class);
+    private static final String LOCK_FILE = "store.lock";
+    private static final Pattern SEGMENT_FILE = Pattern.compile("wal-(\\d+)\\.log");
+    private static final String SNAPSHOT_FILE = "snapshot.json";
+    private static final String SNAPSHOT_TEMP_FILE = "snapshot.json.tmp";
+    // length and checksum in front of every record
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000;
+
+    private enum Op {
+        CLEAR, CREATE_USER, CREATE_GAME, UPDATE_GAME, APPEND_MOVES, SAVE_SNAPSHOT,
+        CREATE_AUTH, DELETE_AUTH, DELETE_AUTH_BY_USERNAME
+    }
+
+    private record LogRecord(long seq, Op op, UserData user, GameData game, AuthData auth, int gameID,
+                             List<String> moves, String text, byte[] state) {
+    }
+
+    private record Snapshot(long lastSeq, InMemoryDataAccess.Contents contents) {
+    }
+
+    /**
+     * Opens a log segment for reading and writing, creating it if needed.
+     */
+    interface SegmentOpener {
+        FileChannel open(Path path) throws IOException;
+    }
+
+    private static final class Segment {
+        private final long firstSeq;
+        private final Path path;
+        private final FileChannel channel;
+        // position just past its last record once it is retired; guarded by syncLock
+        private long end;
+        // whether the file's directory entry is known to be on disk; only the sync leader touches it
+        private boolean linked;
+
+        private Segment(long firstSeq, Path path, FileChannel channel, boolean linked) {
+            this.firstSeq = firstSeq;
+            this.path = path;
+            this.channel = channel;
+            this.linked = linked;
+        }
+    }
+
+    private final Path directory;
+    private final int snapshotInterval;
+    private final SegmentOpener opener;
+    private final InMemoryDataAccess memory = new InMemoryDataAccess();
+    private final Gson gson = new Gson();
+    private final FileChannel lockFile;
+    private final ExecutorService snapshotter;
+    // one snapshot at a time
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    // guards appending a record and applying its change, so memory holds changes in the order the log does.
+    // A ReentrantLock, like syncLock: a virtual thread queued behind an append or an fsync parks instead of pinning.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long nextSeq;
+    private long recordsSinceSnapshot;
+    private boolean snapshotPending;
+    private boolean closed;
+    // the segment records are appended to; only replaced under writeLock
+    private volatile Segment active;
+    // bytes ever appended, across segments, so positions stay comparable
+    private volatile long appendedPosition;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+    private long durablePosition;
+    private boolean syncing;
+    // segments written before the latest rotation that are still on disk, oldest first
+    private final Deque<Segment> retired = new ArrayDeque<>();
+    // set when the log can no longer be trusted; every later write is refused
+    private volatile IOException failure;
+    private long syncs;
+    private long recordsWritten;
+
+    public FileDataAccess(Path directory) throws DataAccessException {
+        this(directory, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Opens the store in directory, creating it if needed, and recovers whatever an earlier run left there.
+     *
+     * @param snapshotInterval records written between snapshots
+     */
+    public FileDataAccess(Path directory, int snapshotInterval) throws DataAccessException {
+        this(directory, snapshotInterval, path -> FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    FileDataAccess(Path directory, int snapshotInterval, SegmentOpener opener) throws DataAccessException {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        this.opener = opener;
+        try {
+            Files.createDirectories(directory);
+            lockFile = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            LOGGER.error("Error opening data directory {}: {}", directory, e.getMessage());
+            throw new DataAccessException("Error opening data directory " + directory, e);
+        }
+        try {
+            lockDirectory();
+            recover(loadSnapshot());
+        } catch (IOException | JsonParseException | DataAccessException e) {
+            LOGGER.error("Error recovering data directory {}: {}", directory, e.getMessage());
+            closeQuietly(e);
+            throw e instanceof DataAccessException dataAccessError ? dataAccessError
+                    : new DataAccessException("Error recovering data directory " + directory, e);
+        }
+        snapshotter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "file-store-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LOGGER.info("Opened data directory {} at record {}", directory, nextSeq - 1);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        write(new LogRecord(0, Op.CLEAR, null, null, null, 0, null, null, null));
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        write(new LogRecord(0, Op.CREATE_USER, user, null, null, 0, null, null, null));
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        return memory.getUser(username);
+    }
+
+    @Override
+    public void createGame(GameData game) throws DataAccessException {
+        write(new LogRecord(0, Op.CREATE_GAME, null, game, null, 0, null, null, null));
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        return memory.getGame(gameID);
+    }
+
+    @Override
+    public List<GameData> listGames() {
+        return memory.listGames();
+    }
+
+    @Override
+    public List<GameData> listGameSummaries(int afterGameID, int limit, boolean openSeatsOnly, String player) {
+        return memory.listGameSummaries(afterGameID, limit, openSeatsOnly, player);
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        write(new LogRecord(0, Op.UPDATE_GAME, null, game, null, 0, null, null, null));
+    }
+
+    @Override
+    public void appendMoves(int gameID, List<String> moves) throws DataAccessException {
+        write(new LogRecord(0, Op.APPEND_MOVES, null, null, null, gameID, moves, null, null));
+    }
+
+    @Override
+    public List<String> getMovesSinceSnapshot(int gameID) throws DataAccessException {
+        return memory.getMovesSinceSnapshot(gameID);
+    }
+
+    @Override
+    public void saveSnapshot(int gameID, byte[] gameState) throws DataAccessException {
+        write(new LogRecord(0, Op.SAVE_SNAPSHOT, null, null, null, gameID, null, null, gameState));
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        write(new LogRecord(0, Op.CREATE_AUTH, null, null, auth, 0, null, null, null));
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        return memory.getAuth(authToken);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        write(new LogRecord(0, Op.DELETE_AUTH, null, null, null, 0, null, authToken, null));
+    }
+
+    @Override
+    public void deleteAuthByUsername(String username) throws DataAccessException {
+        write(new LogRecord(0, Op.DELETE_AUTH_BY_USERNAME, null, null, null, 0, null, username, null));
+    }
+
+    @Override
+    public int getLatestGameID() {
+        return memory.getLatestGameID();
+    }
+
+    /**
+     * Writes a snapshot of everything, so the next startup has nothing to replay.
+     */
+    public void compact() throws DataAccessException {
+        writeSnapshot();
+    }
+
+    /**
+     * Compacts the store and closes the log. Later writes fail.
+     */
+    public void close() throws DataAccessException {
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            writeSnapshot();
+        } finally {
+            writeLock.lock();
+            try {
+                closed = true;
+                try {
+                    // no sync may still be running on the segment when it is closed
+                    awaitDurable(appendedPosition);
+                } catch (DataAccessException e) {
+                    LOGGER.error("Error syncing write-ahead log before closing: {}", e.getMessage());
+                }
+                closeQuietly(null);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        LOGGER.info("Closed data directory {}", directory);
+    }
+
+    /**
+     * Closes the log without compacting, leaving the directory as a crash after the last sync would.
+     */
+    void abandon() {
+        snapshotter.shutdownNow();
+        try {
+            snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            closed = true;
+            closeQuietly(null);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Number of fsyncs of the log so far; {@link #getRecordsWritten()} divided by this is the average group size.
+     */
+    public long getSyncs() {
+        syncLock.lock();
+        try {
+            return syncs;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    public long getRecordsWritten() {
+        syncLock.lock();
+        try {
+            return recordsWritten;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void write(LogRecord change) throws DataAccessException {
+        long position;
+        writeLock.lock();
+        try {
+            checkOpen();
+            // a change that would fail, e.g. a duplicate user, never reaches the log
+            check(change);
+            LogRecord record = new LogRecord(nextSeq, change.op(), change.user(), change.game(), change.auth(),
+                    change.gameID(), change.moves(), change.text(), change.state());
+            try {
+                position = append(record);
+            } catch (IOException e) {
+                LOGGER.error("Error appending to write-ahead log: {}", e.getMessage());
+                throw new DataAccessException("Error appending to write-ahead log", e);
+            }
+            nextSeq++;
+            try {
+                apply(record);
+            } catch (DataAccessException e) {
+                // the check let through a change that does not apply; replay would stop at this record
+                fail(new IOException("Write-ahead log record " + record.seq() + " does not apply", e));
+                throw e;
+            }
+            if (++recordsSinceSnapshot >= snapshotInterval && !snapshotPending) {
+                snapshotPending = true;
+                snapshotter.execute(this::snapshotQuietly);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(position);
+    }
+
+    /**
+     * Appends one record to the active segment. If the write fails, whatever part of the record reached the file is
+     * cut off again: recovery stops at a torn record, so every record appended after it would be lost.
+     */
+    private long append(LogRecord record) throws IOException {
+        byte[] payload = gson.toJson(record).getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        FileChannel log = active.channel;
+        long start = log.position();
+        try {
+            while (frame.hasRemaining()) {
+                log.write(frame);
+            }
+        } catch (IOException e) {
+            try {
+                log.truncate(start);
+                log.position(start);
+            } catch (IOException truncateError) {
+                e.addSuppressed(truncateError);
+                fail(e);
+            }
+            throw e;
+        }
+        appendedPosition += HEADER_BYTES + payload.length;
+        syncLock.lock();
+        try {
+            recordsWritten++;
+        } finally {
+            syncLock.unlock();
+        }
+        return appendedPosition;
+    }
+
+    /**
+     * Returns once everything up to position is on disk. The first caller to find no sync running becomes the
+     * leader and syncs everything appended so far; the others wait for it and usually find themselves covered.
+     */
+    private void awaitDurable(long position) throws DataAccessException {
+        while (true) {
+            long target;
+            List<Segment> segments = new ArrayList<>();
+            syncLock.lock();
+            try {
+                while (syncing && durablePosition < position && failure == null) {
+                    try {
+                        synced.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new DataAccessException("Interrupted waiting for write-ahead log sync", e);
+                    }
+                }
+                if (failure != null) {
+                    throw new DataAccessException("Write-ahead log failed", failure);
+                }
+                if (durablePosition >= position) {
+                    return;
+                }
+                syncing = true;
+                // rotation also holds syncLock, so these segments hold every byte up to target
+                target = appendedPosition;
+                for (Segment segment : retired) {
+                    if (segment.end > durablePosition) {
+                        segments.add(segment);
+                    }
+                }
+                segments.add(active);
+            } finally {
+                syncLock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                if (segments.stream().anyMatch(segment -> !segment.linked)) {
+                    syncDirectory();
+                    segments.forEach(segment -> segment.linked = true);
+                }
+                for (Segment segment : segments) {
+                    segment.channel.force(false);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+            syncLock.lock();
+            try {
+                syncing = false;
+                if (error != null) {
+                    // the kernel may already have dropped the unsynced pages, so nothing after this can be trusted
+                    LOGGER.error("Error syncing write-ahead log: {}", error.getMessage());
+                    failure = error;
+                } else {
+                    durablePosition = Math.max(durablePosition, target);
+                    syncs++;
+                }
+                synced.signalAll();
+            } finally {
+                syncLock.unlock();
+            }
+        }
+    }
+
+    private void fail(IOException error) {
+        syncLock.lock();
+        try {
+            if (failure == null) {
+                LOGGER.error("Write-ahead log failed, refusing further writes: {}", error.getMessage());
+                failure = error;
+            }
+            synced.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void check(LogRecord change) throws DataAccessException {
+        switch (change.op()) {
+            case CREATE_USER -> memory.checkNewUser(change.user());
+            case CREATE_GAME -> memory.checkNewGame(change.game());
+            case UPDATE_GAME -> memory.getGame(change.game().getGameID());
+            case APPEND_MOVES, SAVE_SNAPSHOT -> memory.getGame(change.gameID());
+            case CREATE_AUTH -> memory.checkNewAuth(change.auth());
+            case DELETE_AUTH -> memory.getAuth(change.text());
+            case CLEAR, DELETE_AUTH_BY_USERNAME -> {
+            }
+        }
+    }
+
+    private void apply(LogRecord record) throws DataAccessException {
+        switch (record.op()) {
+            case CLEAR -> memory.clear();
+            case CREATE_USER -> memory.createUser(record.user());
+            case CREATE_GAME -> memory.createGame(record.game());
+            case UPDATE_GAME -> memory.updateGame(record.game());
+            case APPEND_MOVES -> memory.appendMoves(record.gameID(), record.moves());
+            case SAVE_SNAPSHOT -> memory.saveSnapshot(record.gameID(), record.state());
+            case CREATE_AUTH -> memory.createAuth(record.auth());
+            case DELETE_AUTH -> memory.deleteAuth(record.text());
+            case DELETE_AUTH_BY_USERNAME -> memory.deleteAuthByUsername(record.text());
+        }
+    }
+
+    private long loadSnapshot() throws IOException, DataAccessException {
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshotFile)) {
+            return 0;
+        }
+        Snapshot snapshot = gson.fromJson(Files.readString(snapshotFile), Snapshot.class);
+        memory.restore(snapshot.contents());
+        return snapshot.lastSeq();
+    }
+
+    /**
+     * Replays every segment after the snapshot at lastSeq and opens the last one for appending. The log is cut off
+     * at the first damaged record, and any later segment is deleted with it.
+     */
+    private void recover(long lastSeq) throws IOException, DataAccessException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> SEGMENT_FILE.matcher(path.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(FileDataAccess::firstSeq))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        // a segment is obsolete once the snapshot reaches the next one; a crash can leave one behind
+        while (paths.size() > 1 && firstSeq(paths.get(1)) <= lastSeq + 1) {
+            Files.delete(paths.remove(0));
+        }
+
+        nextSeq = lastSeq + 1;
+        long intact = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            Path path = paths.get(i);
+            if (active != null) {
+                // replayed, but only gone once the next snapshot covers it
+                active.channel.close();
+                retired.add(active);
+            }
+            active = new Segment(firstSeq(path), path, opener.open(path), true);
+            intact = replaySegment(active.channel, lastSeq);
+            long size = active.channel.size();
+            if (intact < size) {
+                LOGGER.warn("Discarding {} bytes of damaged write-ahead log in {}", size - intact, path.getFileName());
+                active.channel.truncate(intact);
+                active.channel.force(false);
+                for (Path later : paths.subList(i + 1, paths.size())) {
+                    LOGGER.warn("Discarding write-ahead log {} after the damage", later.getFileName());
+                    Files.delete(later);
+                }
+                break;
+            }
+        }
+        if (active == null) {
+            active = openSegment(nextSeq);
+        }
+        active.channel.position(intact);
+        appendedPosition = intact;
+        durablePosition = intact;
+        LOGGER.info("Replayed {} write-ahead log records", recordsSinceSnapshot);
+    }
+
+    /**
+     * Applies every intact record after lastSeq in one segment.
+     *
+     * @return the length of the segment up to its first damaged record
+     */
+    private long replaySegment(FileChannel log, long lastSeq) throws IOException, DataAccessException {
+        long size = log.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (offset < size) {
+            header.clear();
+            if (!readFully(log, header, offset)) {
+                break;
+            }
+            int length = header.getInt(0);
+            if (length <= 0 || length > MAX_RECORD_BYTES || offset + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(log, payload, offset + HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+
+            LogRecord record = gson.fromJson(new String(payload.array(), StandardCharsets.UTF_8), LogRecord.class);
+            // records up to lastSeq are already in the snapshot; the segment was not deleted before a crash
+            if (record.seq() > lastSeq) {
+                try {
+                    apply(record);
+                } catch (DataAccessException e) {
+                    throw new DataAccessException("Write-ahead log record " + record.seq() + " does not apply", e);
+                }
+                recordsSinceSnapshot++;
+            }
+            nextSeq = Math.max(nextSeq, record.seq() + 1);
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private static long firstSeq(Path segment) {
+        Matcher matcher = SEGMENT_FILE.matcher(segment.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a write-ahead log segment: " + segment);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private Segment openSegment(long firstSeq) throws IOException {
+        Path path = directory.resolve("wal-" + firstSeq + ".log");
+        return new Segment(firstSeq, path, opener.open(path), false);
+    }
+
+    // two stores appending to one log would interleave their records
+    private void lockDirectory() throws IOException, DataAccessException {
+        try {
+            if (lockFile.tryLock() != null) {
+                return;
+            }
+        } catch (OverlappingFileLockException e) {
+            // held by another store in this process
+        }
+        throw new DataAccessException("Data directory " + directory + " is in use");
+    }
+
+    private static boolean readFully(FileChannel log, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (log.read(buffer, offset + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts a new segment and writes everything before it to the snapshot file, then deletes the older segments.
+     * Only taking the copy and switching segments hold writeLock; serializing and syncing the snapshot do not, so
+     * writers carry on meanwhile.
+     */
+    private void writeSnapshot() throws DataAccessException {
+        snapshotLock.lock();
+        try {
+            long lastSeq;
+            InMemoryDataAccess.Contents contents;
+            long rotatedAt;
+            writeLock.lock();
+            try {
+                snapshotPending = false;
+                checkOpen();
+                if (recordsSinceSnapshot == 0) {
+                    return;
+                }
+                lastSeq = nextSeq - 1;
+                contents = memory.contents();
+                rotatedAt = rotate();
+                recordsSinceSnapshot = 0;
+            } finally {
+                writeLock.unlock();
+            }
+
+            Path temp = directory.resolve(SNAPSHOT_TEMP_FILE);
+            String json = gson.toJson(new Snapshot(lastSeq, contents));
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer bytes = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                out.force(true);
+            }
+            Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory();
+            LOGGER.info("Wrote snapshot at record {}", lastSeq);
+
+            // once this returns no sync is still using a segment that ends before the rotation
+            awaitDurable(rotatedAt);
+            List<Segment> covered = new ArrayList<>();
+            syncLock.lock();
+            try {
+                while (!retired.isEmpty() && retired.peekFirst().end <= rotatedAt) {
+                    covered.add(retired.pollFirst());
+                }
+            } finally {
+                syncLock.unlock();
+            }
+            for (Segment segment : covered) {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error writing snapshot: {}", e.getMessage());
+            throw new DataAccessException("Error writing snapshot", e);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Must hold writeLock. Moves appending to a new segment unless the active one is still empty.
+     *
+     * @return the position the new segment starts at
+     */
+    private long rotate() throws IOException {
+        if (active.firstSeq < nextSeq) {
+            Segment next = openSegment(nextSeq);
+            syncLock.lock();
+            try {
+                active.end = appendedPosition;
+                retired.add(active);
+                active = next;
+            } finally {
+                syncLock.unlock();
+            }
+        }
+        return appendedPosition;
+    }
+
+    private void syncDirectory() {
+        // makes renames and new files durable; not every platform lets a directory be opened, and there it is best
+        // effort
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            LOGGER.debug("Could not sync data directory: {}", e.getMessage());
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            writeSnapshot();
+        } catch (DataAccessException e) {
+            LOGGER.error("Background snapshot failed, log keeps growing: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Closes every open file, adding what goes wrong to error if there is one.
+     */
+    private void closeQuietly(Exception error) {
+        List<FileChannel> channels = new ArrayList<>();
+        syncLock.lock();
+        try {
+            retired.forEach(segment -> channels.add(segment.channel));
+        } finally {
+            syncLock.unlock();
+        }
+        if (active != null) {
+            channels.add(active.channel);
+        }
+        channels.add(lockFile);
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (error != null) {
+                    error.addSuppressed(e);
+                }
+                LOGGER.error("Error closing data directory {}: {}", directory, e.getMessage());
+            }
+        }
+    }
+
+    private void checkOpen() throws DataAccessException {
+        if (closed) {
+            throw new DataAccessException("Data store is closed");
+        }
+        if (failure != null) {
+            throw new DataAccessException("Write-ahead log failed", failure);
+        }
+    }
+}
@@ -5,28 +5,47 @@ import model.GameData;
 import model.AuthData;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Thread-safe in-memory store, usable as the server's data access when no database is needed. Every store is a
+ * concurrent map, and each compound update runs as one atomic map operation on a single key. Game names and each
+ * user's tokens are kept in secondary indexes, so uniqueness checks and per-user deletes do not scan everything.
+ * <br/>
+ * Games are stored as private copies and replaced whole on update, so a caller holding a GameData it read
+ * earlier never sees, or causes, a half-applied change.
+ */
 public class InMemoryDataAccess implements DataAccessInterface, UserDAO, GameDAO, AuthDAO {
-    private final Map<String, UserData> users = new HashMap<>();
-    private final Map<Integer, GameData> games = new HashMap<>();
-    private final Map<String, AuthData> authTokens = new HashMap<>();
+    private final ConcurrentMap<String, UserData> users = new ConcurrentHashMap<>();
+    // ordered by ID so listing pages walk a tail map instead of sorting
+    private final ConcurrentNavigableMap<Integer, GameData> games = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Integer> gameIDsByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AuthData> authTokens = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> tokensByUsername = new ConcurrentHashMap<>();
+    // moves logged since each game's last snapshot
+    private final ConcurrentMap<Integer, List<String>> moveLogs = new ConcurrentHashMap<>();
     private final AtomicInteger gameIDGenerator = new AtomicInteger(1);
 
     @Override
     public void clear() {
         users.clear();
         games.clear();
+        gameIDsByName.clear();
         authTokens.clear();
+        tokensByUsername.clear();
+        moveLogs.clear();
         gameIDGenerator.set(1);
     }
 
     @Override
     public void createUser(UserData user) throws DataAccessException {
-        if (users.containsKey(user.getUsername())) {
+        if (users.putIfAbsent(user.getUsername(), user) != null) {
             throw new DataAccessException("User already exists");
         }
-        users.put(user.getUsername(), user);
     }
 
     @Override
@@ -45,15 +64,15 @@ public class InMemoryDataAccess implements DataAccessInterface, UserDAO, GameDAO
 
     @Override
     public void createGame(GameData game) throws DataAccessException {
-        for (GameData existingGame : games.values()) {
-            if (existingGame.getGameName().equals(game.getGameName())) {
-                throw new DataAccessException("Game with this name already exists");
-            }
+        // claim the name first; 0 marks it as taken until the game has its ID
+        if (gameIDsByName.putIfAbsent(game.getGameName(), 0) != null) {
+            throw new DataAccessException("Game with this name already exists");
         }
 
         int gameID = gameIDGenerator.getAndIncrement();
         game.setGameID(gameID);
-        games.put(gameID, game);
+        games.put(gameID, copyOf(game));
+        gameIDsByName.put(game.getGameName(), gameID);
     }
 
     @Override
@@ -62,7 +81,7 @@ public class InMemoryDataAccess implements DataAccessInterface, UserDAO, GameDAO
         if (game == null) {
             throw new DataAccessException("Game not found");
         }
-        return game;
+        return copyOf(game);
     }
 
     @Override
@@ -72,28 +91,101 @@ public class InMemoryDataAccess implements DataAccessInterface, UserDAO, GameDAO
 
     @Override
     public List<GameData> listGames() {
-        return new ArrayList<>(games.values());
+        List<GameData> list = new ArrayList<>();
+        for (GameData game : games.values()) {
+            list.add(copyOf(game));
+        }
+        return list;
+    }
+
+    @Override
+    public List<GameData> listGameSummaries(int afterGameID, int limit, boolean openSeatsOnly, String player) {
+        return games.tailMap(afterGameID, false).values().stream()
+                .filter(game -> !openSeatsOnly || game.getWhiteUsername() == null || game.getBlackUsername() == null)
+                .filter(game -> player == null || player.equals(game.getWhiteUsername()) || player.equals(game.getBlackUsername()))
+                .limit(limit)
+                .map(game -> new GameData(game.getGameID(), game.getGameName(), game.getWhiteUsername(), game.getBlackUsername(), null))
+                .toList();
     }
 
     @Override
     public void updateGame(GameData game) throws DataAccessException {
-        if (!games.containsKey(game.getGameID())) {
+        if (games.computeIfPresent(game.getGameID(), (id, current) -> copyOf(game)) == null) {
+            throw new DataAccessException("Game not found");
+        }
+    }
+
+    /**
+     * Replaces the stored game with updated only if it still equals expected in every column, i.e. nobody else
+     * changed it since expected was read.
+     *
+     * @return whether the update was applied
+     */
+    public boolean compareAndSetGame(GameData expected, GameData updated) throws DataAccessException {
+        boolean[] applied = {false};
+        GameData result = games.computeIfPresent(expected.getGameID(), (id, current) -> {
+            // the map may run this again against a newer current, so decide afresh every time
+            applied[0] = sameColumns(current, expected);
+            return applied[0] ? copyOf(updated) : current;
+        });
+        if (result == null) {
+            throw new DataAccessException("Game not found");
+        }
+        return applied[0];
+    }
+
+    @Override
+    public void appendMoves(int gameID, List<String> moves) throws DataAccessException {
+        getGame(gameID);
+        moveLogs.compute(gameID, (id, log) -> {
+            List<String> appended = log == null ? new ArrayList<>() : log;
+            appended.addAll(moves);
+            return appended;
+        });
+    }
+
+    @Override
+    public List<String> getMovesSinceSnapshot(int gameID) throws DataAccessException {
+        getGame(gameID);
+        List<String> copy = new ArrayList<>();
+        moveLogs.computeIfPresent(gameID, (id, log) -> {
+            copy.addAll(log);
+            return log;
+        });
+        return copy;
+    }
+
+    @Override
+    public void saveSnapshot(int gameID, byte[] gameState) throws DataAccessException {
+        GameData updated = games.computeIfPresent(gameID, (id, current) ->
+                new GameData(id, current.getGameName(), current.getWhiteUsername(), current.getBlackUsername(), gameState));
+        if (updated == null) {
             throw new DataAccessException("Game not found");
         }
-        games.put(game.getGameID(), game);
+        // not atomic with replacing the state: a reader could see the new state with the old moves, so callers
+        // that load a game hold its row lock, as GameService does
+        moveLogs.remove(gameID);
     }
 
     @Override
     public void createAuth(AuthData auth) throws DataAccessException {
-        if (authTokens.containsKey(auth.getAuthToken())) {
+        boolean[] created = {false};
+        tokensByUsername.compute(auth.getUsername(), (username, tokens) -> {
+            Set<String> userTokens = tokens == null ? ConcurrentHashMap.newKeySet() : tokens;
+            if (authTokens.putIfAbsent(auth.getAuthToken(), auth) == null) {
+                userTokens.add(auth.getAuthToken());
+                created[0] = true;
+            }
+            return userTokens.isEmpty() ? null : userTokens;
+        });
+        if (!created[0]) {
             throw new DataAccessException("Auth token already exists");
         }
-        authTokens.put(auth.getAuthToken(), auth);
     }
 
     @Override
     public AuthData getAuth(String authToken) throws DataAccessException {
-        AuthData auth = authTokens.get(authToken);
+        AuthData auth = authToken == null ? null : authTokens.get(authToken);
         if (auth == null) {
             throw new DataAccessException("Auth token not found");
         }
@@ -102,14 +194,22 @@ public class InMemoryDataAccess implements DataAccessInterface, UserDAO, GameDAO
 
     @Override
     public void deleteAuth(String authToken) throws DataAccessException {
-        if (authTokens.remove(authToken) == null) {
+        AuthData auth = authToken == null ? null : authTokens.remove(authToken);
+        if (auth == null) {
             throw new DataAccessException("Auth token not found");
         }
+        tokensByUsername.computeIfPresent(auth.getUsername(), (username, tokens) -> {
+            tokens.remove(authToken);
+            return tokens.isEmpty() ? null : tokens;
+        });
     }
 
     @Override
     public void deleteAuthByUsername(String username) throws DataAccessException {
-        authTokens.entrySet().removeIf(entry -> entry.getValue().getUsername().equals(username));
+        tokensByUsername.computeIfPresent(username, (name, tokens) -> {
+            tokens.forEach(authTokens::remove);
+            return null;
+        });
     }
 
 
@@ -117,4 +217,68 @@ public class InMemoryDataAccess implements DataAccessInterface, UserDAO, GameDAO
     public int getLatestGameID() {
         return gameIDGenerator.get() - 1;
     }
+
+    // the checks createUser, createGame and createAuth make, without changing anything; the answer only holds
+    // while the caller keeps other writers out
+
+    void checkNewUser(UserData user) throws DataAccessException {
+        if (users.containsKey(user.getUsername())) {
+            throw new DataAccessException("User already exists");
+        }
+    }
+
+    void checkNewGame(GameData game) throws DataAccessException {
+        if (gameIDsByName.containsKey(game.getGameName())) {
+            throw new DataAccessException("Game with this name already exists");
+        }
+    }
+
+    void checkNewAuth(AuthData auth) throws DataAccessException {
+        if (authTokens.containsKey(auth.getAuthToken())) {
+            throw new DataAccessException("Auth token already exists");
+        }
+    }
+
+    /**
+     * Everything this store holds, for writing to durable storage.
+     */
+    record Contents(List<UserData> users, List<GameData> games, List<AuthData> authTokens,
+                    Map<Integer, List<String>> moveLogs, int nextGameID) {
+    }
+
+    // callers must keep writers out while these run, or the result mixes states
+    Contents contents() {
+        Map<Integer, List<String>> logs = new HashMap<>();
+        moveLogs.forEach((gameID, log) -> logs.put(gameID, new ArrayList<>(log)));
+        return new Contents(new ArrayList<>(users.values()), listGames(), new ArrayList<>(authTokens.values()),
+                logs, gameIDGenerator.get());
+    }
+
+    void restore(Contents contents) throws DataAccessException {
+        clear();
+        for (UserData user : contents.users()) {
+            createUser(user);
+        }
+        for (GameData game : contents.games()) {
+            games.put(game.getGameID(), copyOf(game));
+            gameIDsByName.put(game.getGameName(), game.getGameID());
+        }
+        for (AuthData auth : contents.authTokens()) {
+            createAuth(auth);
+        }
+        contents.moveLogs().forEach((gameID, log) -> moveLogs.put(gameID, new ArrayList<>(log)));
+        gameIDGenerator.set(contents.nextGameID());
+    }
+
+    private static boolean sameColumns(GameData a, GameData b) {
+        return a.getGameID() == b.getGameID() && Objects.equals(a.getGameName(), b.getGameName())
+                && Objects.equals(a.getWhiteUsername(), b.getWhiteUsername())
+                && Objects.equals(a.getBlackUsername(), b.getBlackUsername())
+                && Arrays.equals(a.getGameState(), b.getGameState());
+    }
+
+    private static GameData copyOf(GameData game) {
+        return new GameData(game.getGameID(), game.getGameName(), game.getWhiteUsername(),
+                game.getBlackUsername(), game.getGameState());
+    }
 }
@@ -12,16 +12,44 @@ import java.util.List;
 
 public class MySQLDataAccess implements DataAccessInterface {
     private static final Logger LOGGER = LoggerFactory.getLogger(MySQLDataAccess.class);
+    private static final String UPDATE_GAME_SQL =
+            "UPDATE games SET game_name = ?, white_username = ?, black_username = ?, game_state = ? WHERE id = ?";
+    private static final String INSERT_MOVE_SQL = "INSERT INTO moves (game_id, move) VALUES (?, ?)";
+    private static final String SAVE_SNAPSHOT_SQL = "UPDATE games SET game_state = ?, " +
+            "snapshot_move_id = (SELECT COALESCE(MAX(id), 0) FROM moves WHERE game_id = ?) WHERE id = ?";
+
+    // null writes each game update straight through on its own connection
+    private final BatchWriter batchWriter;
+
+    public MySQLDataAccess() {
+        this.batchWriter = null;
+    }
+
+    /**
+     * Game updates, moves and snapshots from concurrent callers are committed together in batches; each call
+     * still returns only once its own write is committed.
+     */
+    public MySQLDataAccess(BatchWriter.Settings batchSettings) {
+        this.batchWriter = new BatchWriter(DatabaseManager::getConnection, batchSettings);
+    }
 
     @Override
     public void clear() throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
             try (Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate("DELETE FROM auth_tokens");
-                stmt.executeUpdate("DELETE FROM moves");
-                stmt.executeUpdate("DELETE FROM games");
-                stmt.executeUpdate("DELETE FROM users");
+                stmt.addBatch("DELETE FROM auth_tokens");
+                stmt.addBatch("DELETE FROM moves");
+                stmt.addBatch("DELETE FROM games");
+                stmt.addBatch("DELETE FROM users");
+                stmt.executeBatch();
+                conn.commit();
                 LOGGER.info("Database cleared successfully");
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
         } catch (SQLException e) {
             LOGGER.error("Error clearing tables: {}", e.getMessage());
@@ -76,7 +104,7 @@ public class MySQLDataAccess implements DataAccessInterface {
             stmt.setString(1, game.getGameName());
             stmt.setString(2, game.getWhiteUsername());
             stmt.setString(3, game.getBlackUsername());
-            stmt.setString(4, game.getGameState());
+            stmt.setBytes(4, game.getGameState());
             stmt.executeUpdate();
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
@@ -106,7 +134,7 @@ public class MySQLDataAccess implements DataAccessInterface {
                             rs.getString("game_name"),
                             rs.getString("white_username"),
                             rs.getString("black_username"),
-                            rs.getString("game_state")
+                            rs.getBytes("game_state")
                     );
                 } else {
                     throw new DataAccessException("Game not found");
@@ -131,7 +159,7 @@ public class MySQLDataAccess implements DataAccessInterface {
                         rs.getString("game_name"),
                         rs.getString("white_username"),
                         rs.getString("black_username"),
-                        rs.getString("game_state")
+                        rs.getBytes("game_state")
                 ));
             }
             LOGGER.info("Games listed successfully");
@@ -142,16 +170,54 @@ public class MySQLDataAccess implements DataAccessInterface {
         return games;
     }
 
+    @Override
+    public List<GameData> listGameSummaries(int afterGameID, int limit, boolean openSeatsOnly, String player)
+            throws DataAccessException {
+        List<GameData> games = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT id, game_name, white_username, black_username FROM games WHERE id > ?");
+        if (openSeatsOnly) {
+            sql.append(" AND (white_username IS NULL OR black_username IS NULL)");
+        }
+        if (player != null) {
+            sql.append(" AND (white_username = ? OR black_username = ?)");
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            stmt.setInt(index++, afterGameID);
+            if (player != null) {
+                stmt.setString(index++, player);
+                stmt.setString(index++, player);
+            }
+            stmt.setInt(index, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    games.add(new GameData(
+                            rs.getInt("id"),
+                            rs.getString("game_name"),
+                            rs.getString("white_username"),
+                            rs.getString("black_username"),
+                            null
+                    ));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error listing game summaries: {}", e.getMessage());
+            throw new DataAccessException("Error listing games", e);
+        }
+        return games;
+    }
+
     @Override
     public void updateGame(GameData game) throws DataAccessException {
-        String sql = "UPDATE games SET game_name = ?, white_username = ?, black_username = ?, game_state = ? WHERE id = ?";
+        if (batchWriter != null) {
+            batchWriter.write(UPDATE_GAME_SQL, game.getGameID(), List.of(stmt -> bindGame(stmt, game)), null);
+            return;
+        }
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, game.getGameName());
-            stmt.setString(2, game.getWhiteUsername());
-            stmt.setString(3, game.getBlackUsername());
-            stmt.setString(4, game.getGameState());
-            stmt.setInt(5, game.getGameID());
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_GAME_SQL)) {
+            bindGame(stmt, game);
             stmt.executeUpdate();
             LOGGER.info("Game updated successfully: {}", game.getGameID());
         } catch (SQLException e) {
@@ -160,6 +226,81 @@ public class MySQLDataAccess implements DataAccessInterface {
         }
     }
 
+    @Override
+    public void appendMoves(int gameID, List<String> moves) throws DataAccessException {
+        if (batchWriter != null) {
+            List<BatchWriter.Binder> rows = new ArrayList<>(moves.size());
+            for (String move : moves) {
+                rows.add(stmt -> {
+                    stmt.setInt(1, gameID);
+                    stmt.setString(2, move);
+                });
+            }
+            batchWriter.write(INSERT_MOVE_SQL, gameID, rows, null);
+            return;
+        }
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_MOVE_SQL)) {
+                for (String move : moves) {
+                    stmt.setInt(1, gameID);
+                    stmt.setString(2, move);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error appending moves: {}", e.getMessage());
+            throw new DataAccessException("Error appending moves", e);
+        }
+    }
+
+    @Override
+    public List<String> getMovesSinceSnapshot(int gameID) throws DataAccessException {
+        List<String> moves = new ArrayList<>();
+        String sql = "SELECT m.move FROM moves m JOIN games g ON g.id = m.game_id " +
+                "WHERE m.game_id = ? AND m.id > g.snapshot_move_id ORDER BY m.id";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, gameID);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    moves.add(rs.getString("move"));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Error fetching moves: {}", e.getMessage());
+            throw new DataAccessException("Error fetching moves", e);
+        }
+        return moves;
+    }
+
+    @Override
+    public void saveSnapshot(int gameID, byte[] gameState) throws DataAccessException {
+        if (batchWriter != null) {
+            batchWriter.write(SAVE_SNAPSHOT_SQL, gameID, List.of(stmt -> bindSnapshot(stmt, gameID, gameState)),
+                    "Game not found");
+            return;
+        }
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SAVE_SNAPSHOT_SQL)) {
+            bindSnapshot(stmt, gameID, gameState);
+            if (stmt.executeUpdate() == 0) {
+                throw new DataAccessException("Game not found");
+            }
+            LOGGER.info("Game snapshot saved: {}", gameID);
+        } catch (SQLException e) {
+            LOGGER.error("Error saving game snapshot: {}", e.getMessage());
+            throw new DataAccessException("Error saving game snapshot", e);
+        }
+    }
+
     @Override
     public void createAuth(AuthData auth) throws DataAccessException {
         String sql = "INSERT INTO auth_tokens (auth_token, username) VALUES (?, ?)";
@@ -205,12 +346,12 @@ public class MySQLDataAccess implements DataAccessInterface {
             stmt.setString(1, authToken);
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected == 0) {
-                LOGGER.error("Auth token not found in database: {}", authToken);
+                LOGGER.error("Auth token not found in database");
                 throw new DataAccessException("Auth token not found");
             }
-            LOGGER.info("Auth token deleted: {}", authToken);
+            LOGGER.info("Auth token deleted");
         } catch (SQLException e) {
-            LOGGER.error("Error deleting auth token: {}", authToken, e);
+            LOGGER.error("Error deleting auth token", e);
             throw new DataAccessException("Error deleting auth token", e);
         }
     }
@@ -249,4 +390,34 @@ public class MySQLDataAccess implements DataAccessInterface {
             throw new DataAccessException("Error getting latest game ID", e);
         }
     }
+
+    /**
+     * Batch counters: flushes, writes and rollbacks, and batch size and flush time; null when not batching.
+     */
+    public BatchWriter.Stats batchStats() {
+        return batchWriter == null ? null : batchWriter.stats();
+    }
+
+    /**
+     * Commits any batched writes still queued and stops the batch writer.
+     */
+    public void close() {
+        if (batchWriter != null) {
+            batchWriter.close();
+        }
+    }
+
+    private static void bindGame(PreparedStatement stmt, GameData game) throws SQLException {
+        stmt.setString(1, game.getGameName());
+        stmt.setString(2, game.getWhiteUsername());
+        stmt.setString(3, game.getBlackUsername());
+        stmt.setBytes(4, game.getGameState());
+        stmt.setInt(5, game.getGameID());
+    }
+
+    private static void bindSnapshot(PreparedStatement stmt, int gameID, byte[] gameState) throws SQLException {
+        stmt.setBytes(1, gameState);
+        stmt.setInt(2, gameID);
+        stmt.setInt(3, gameID);
+    }
 }
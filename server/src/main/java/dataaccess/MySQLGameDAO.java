@@ -17,7 +17,7 @@ public class MySQLGameDAO implements GameDAO {
             stmt.setString(1, game.getGameName());
             stmt.setString(2, game.getWhiteUsername());
             stmt.setString(3, game.getBlackUsername());
-            stmt.setString(4, game.getGameState());
+            stmt.setBytes(4, game.getGameState());
             stmt.executeUpdate();
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
@@ -46,7 +46,7 @@ public class MySQLGameDAO implements GameDAO {
                             rs.getString("game_name"),
                             rs.getString("white_username"),
                             rs.getString("black_username"),
-                            rs.getString("game_state")
+                            rs.getBytes("game_state")
                     );
                 }
             }
@@ -2,6 +2,7 @@ package handlers;
 
 import com.google.gson.Gson;
 import dataaccess.DataAccessException;
+import service.AuthService;
 import service.GameService;
 import spark.Request;
 import spark.Response;
@@ -9,16 +10,19 @@ import spark.Route;
 
 public class ClearHandler implements Route {
     private GameService gameService;
+    private AuthService authService;
     private final Gson gson = new Gson();
 
-    public ClearHandler(GameService gameService) {
+    public ClearHandler(GameService gameService, AuthService authService) {
         this.gameService = gameService;
+        this.authService = authService;
     }
 
     @Override
     public Object handle(Request req, Response res) {
         try {
             gameService.clear();
+            authService.invalidateAll();
             res.status(200);
             return gson.toJson(new Object());
         } catch (DataAccessException e) {
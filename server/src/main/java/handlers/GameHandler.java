@@ -4,9 +4,9 @@ import com.google.gson.Gson;
 import dataaccess.DataAccessException;
 import requests.CreateGameRequest;
 import requests.JoinGameRequest;
+import requests.ListGamesRequest;
 import results.CreateGameResult;
 import results.JoinGameResult;
-import results.ListGamesResult;
 import service.AuthService;
 import service.GameService;
 import spark.Request;
@@ -41,9 +41,13 @@ public class GameHandler {
         String authToken = req.headers("authorization");
         try {
             authService.validateAuthToken(authToken);
-            var games = gameService.listGames();
+            var request = new ListGamesRequest(authToken, intParam(req, "cursor"), intParam(req, "limit"),
+                    Boolean.parseBoolean(req.queryParams("openSeats")), req.queryParams("player"));
             res.status(200);
-            return gson.toJson(new ListGamesResult(games));
+            return gson.toJson(gameService.listGames(request));
+        } catch (NumberFormatException e) {
+            res.status(400);
+            return gson.toJson(new ErrorResponse("Error: bad request"));
         } catch (DataAccessException e) {
             res.status(e.getMessage().equals("Auth token not found") ? 401 : 400);
             return gson.toJson(new ErrorResponse("Error: " + e.getMessage()));
@@ -69,4 +73,9 @@ public class GameHandler {
             return gson.toJson(new ErrorResponse("Error: " + e.getMessage()));
         }
     };
+
+    private static Integer intParam(Request req, String name) {
+        String value = req.queryParams(name);
+        return value == null || value.isEmpty() ? null : Integer.valueOf(value);
+    }
 }
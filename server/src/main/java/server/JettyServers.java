@@ -0,0 +1,58 @@
+package server;
+
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+import spark.embeddedserver.jetty.JettyServerFactory;
+
+/**
+ * Builds the Jetty server under Spark with the thread pool of a {@link Server.ThreadMode}. Connectors get a listen
+ * backlog long enough that a burst of connects waits for the acceptor instead of being dropped by the kernel.
+ */
+final class JettyServers implements JettyServerFactory {
+    private static final int ACCEPT_QUEUE_SIZE = 1024;
+    // virtual threads cost a few hundred bytes while blocked, so the pool's bound only guards against runaway load
+    private static final int VIRTUAL_MAX_THREADS = 10_000;
+    private static final int VIRTUAL_MIN_THREADS = 8;
+    private static final int VIRTUAL_IDLE_TIMEOUT_MILLIS = 60_000;
+
+    private JettyServers() {
+    }
+
+    static EmbeddedJettyFactory factory(Server.ThreadMode threadMode) {
+        EmbeddedJettyFactory factory = new EmbeddedJettyFactory(new JettyServers());
+        if (threadMode == Server.ThreadMode.VIRTUAL) {
+            // Jetty still queues and bounds jobs as usual, but every thread it starts is virtual; none are
+            // reserved, since starting one costs next to nothing
+            factory.withThreadPool(new QueuedThreadPool(VIRTUAL_MAX_THREADS, VIRTUAL_MIN_THREADS,
+                    VIRTUAL_IDLE_TIMEOUT_MILLIS, 0, null, null, Thread.ofVirtual().name("jetty-virtual-", 0).factory()));
+        }
+        return factory;
+    }
+
+    /**
+     * Spark's default: Jetty's own pool unless a size is configured.
+     */
+    @Override
+    public org.eclipse.jetty.server.Server create(int maxThreads, int minThreads, int threadTimeoutMillis) {
+        return create(maxThreads > 0 ? new QueuedThreadPool(maxThreads, minThreads, threadTimeoutMillis)
+                : new QueuedThreadPool());
+    }
+
+    @Override
+    public org.eclipse.jetty.server.Server create(ThreadPool threadPool) {
+        return new org.eclipse.jetty.server.Server(threadPool) {
+            @Override
+            public void setConnectors(Connector[] connectors) {
+                for (Connector connector : connectors) {
+                    if (connector instanceof ServerConnector serverConnector) {
+                        serverConnector.setAcceptQueueSize(ACCEPT_QUEUE_SIZE);
+                    }
+                }
+                super.setConnectors(connectors);
+            }
+        };
+    }
+}
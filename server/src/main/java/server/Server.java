@@ -1,40 +1,86 @@
 package server;
 
 import com.google.gson.Gson;
+import dataaccess.BatchWriter;
+import dataaccess.CachingDataAccess;
+import dataaccess.DataAccessException;
+import dataaccess.DataAccessInterface;
 import dataaccess.DatabaseManager;
+import dataaccess.FileDataAccess;
+import dataaccess.InMemoryDataAccess;
 import dataaccess.MySQLDataAccess;
 import handlers.*;
 import service.*;
 import spark.Spark;
+import spark.embeddedserver.EmbeddedServers;
+import websocket.Broadcaster;
+import websocket.OutboundQueue;
 import websocket.WebSocketHandler;
 
+import java.nio.file.Path;
+
 public class Server {
+    /**
+     * What runs HTTP requests and websocket messages, which Jetty dispatches from the same pool. PLATFORM is
+     * Jetty's default pool of 200 platform threads. VIRTUAL gives every request and message a virtual thread, so a
+     * handler blocked on the data store gives its carrier back instead of holding a pool thread. That only holds
+     * while nothing on the path blocks inside a synchronized block: MySQL Connector/J 8.0 does, and pins the carrier
+     * for every statement, so the server depends on Connector/J 9, which uses locks. CPU-bound work such as BCrypt
+     * needs a core either way.
+     */
+    public enum ThreadMode {
+        PLATFORM, VIRTUAL
+    }
+
+    private static final int GAME_CACHE_SIZE = 1024;
+    // how long a move may sit in memory before it is written to the data store; 0 writes every move synchronously
+    private static final long GAME_MAX_STALENESS_MILLIS = Long.getLong("chess.game.maxStalenessMillis", 500);
+    // messages a websocket client may fall behind by, and what happens past that: "drop" stale board states or "disconnect"
+    private static final int WS_QUEUE_CAPACITY = Integer.getInteger("chess.ws.queueCapacity", 64);
+    private static final String WS_OVERFLOW_POLICY = System.getProperty("chess.ws.overflowPolicy", "drop");
+
+    private GameService gameService;
+    private MySQLDataAccess database;
+    private FileDataAccess fileStore;
 
+    /**
+     * Runs in the thread mode named by the chess.threads system property: "platform" (the default) or "virtual".
+     */
     public int run(int desiredPort) {
+        return run(desiredPort, ThreadMode.valueOf(System.getProperty("chess.threads", "platform").toUpperCase()));
+    }
+
+    public int run(int desiredPort, ThreadMode threadMode) {
+        DataAccessInterface dataAccess;
         try {
-            DatabaseManager.createDatabase();
+            dataAccess = createDataAccess();
         } catch (Exception e) {
             e.printStackTrace();
             return -1;
         }
 
+        // the factory is global to Spark; set it every time so a later server in this JVM gets the mode it asks for
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, JettyServers.factory(threadMode));
         Spark.port(desiredPort);
 
         Spark.staticFiles.location("/web");
 
         Gson gson = new Gson();
 
-        var dataAccess = new MySQLDataAccess();
-
-        var userService = new UserService(dataAccess);
-        var gameService = new GameService(dataAccess);
         var authService = new AuthService(dataAccess);
+        var userService = new UserService(dataAccess, authService);
+        gameService = new GameService(dataAccess, GAME_MAX_STALENESS_MILLIS);
 
-        var clearHandler = new ClearHandler(gameService);
+        var clearHandler = new ClearHandler(gameService, authService);
         var userHandler = new UserHandler(userService);
         var gameHandler = new GameHandler(gameService, authService);
 
         WebSocketHandler.setServices(gameService, authService);
+        WebSocketHandler.setOutboundSettings(new OutboundQueue.Settings(WS_QUEUE_CAPACITY, switch (WS_OVERFLOW_POLICY) {
+            case "drop" -> OutboundQueue.OverflowPolicy.DROP_STALE_STATES;
+            case "disconnect" -> OutboundQueue.OverflowPolicy.DISCONNECT;
+            default -> throw new IllegalArgumentException("Unknown websocket overflow policy: " + WS_OVERFLOW_POLICY);
+        }));
 
         // Configure WebSocket before HTTP routes
         Spark.webSocket("/ws", WebSocketHandler.class);
@@ -55,8 +101,62 @@ public class Server {
         return actualPort;
     }
 
+    /**
+     * The store named by the chess.dataAccess system property: "mysql" (the default), "file" for a durable
+     * embedded store in the chess.dataDir directory, or "memory" for an ephemeral server that needs no database.
+     */
+    private DataAccessInterface createDataAccess() throws DataAccessException {
+        String store = System.getProperty("chess.dataAccess", "mysql");
+        return switch (store) {
+            case "memory" -> new InMemoryDataAccess();
+            case "file" -> {
+                fileStore = new FileDataAccess(Path.of(System.getProperty("chess.dataDir", "data")));
+                yield fileStore;
+            }
+            case "mysql" -> {
+                DatabaseManager.createDatabase();
+                BatchWriter.Settings batchSettings = DatabaseManager.batchSettings();
+                database = batchSettings == null ? new MySQLDataAccess() : new MySQLDataAccess(batchSettings);
+                // active games are served from memory; every write still goes to MySQL before the call returns
+                yield new CachingDataAccess(database, GAME_CACHE_SIZE);
+            }
+            default -> throw new DataAccessException("Unknown data access: " + store);
+        };
+    }
+
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        reportWebSocketStats();
+        if (gameService != null) {
+            try {
+                gameService.shutdown();
+            } catch (DataAccessException e) {
+                e.printStackTrace();
+            }
+        }
+        if (database != null) {
+            database.close();
+            DatabaseManager.closeIdleConnections();
+        }
+        if (fileStore != null) {
+            try {
+                fileStore.close();
+            } catch (DataAccessException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * What sharing encoded broadcasts saved, and how often slow clients overflowed their queues, since startup.
+     */
+    private static void reportWebSocketStats() {
+        Broadcaster.Stats broadcast = WebSocketHandler.broadcastStats();
+        OutboundQueue.Stats outbound = WebSocketHandler.outboundStats();
+        System.out.printf("WebSocket messages: %d encoded, %d delivered; shared encoding saved %d bytes and %.1f ms%n",
+                broadcast.messages(), broadcast.deliveries(), broadcast.bytesSaved(), broadcast.encodeMillisSaved());
+        System.out.printf("WebSocket queues: %d stale board states dropped, %d slow clients disconnected%n",
+                outbound.dropped(), outbound.disconnected());
     }
 }
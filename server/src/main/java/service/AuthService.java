@@ -6,38 +6,129 @@ import model.AuthData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Validates auth tokens against the data store, keeping recently validated tokens in a bounded in-memory cache so
+ * the lookup done for every HTTP request and websocket message does not go to the database. A cached token is
+ * trusted for at most the TTL; deleting a token through this service drops it from the cache immediately.
+ * <br/>
+ * Tokens are secrets, so they are never written to the log.
+ */
 public class AuthService {
     private final DataAccessInterface dataAccess;
     private static final Logger LOGGER = LoggerFactory.getLogger(AuthService.class);
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+    private static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+
+    private record CachedAuth(String username, long expiresAt) {
+    }
+
+    private final Map<String, CachedAuth> cache;
+    private final long ttlMillis;
+    // bumped on every invalidation so a lookup that raced with it does not cache a deleted token
+    private long generation;
+    private long hits;
+    private long misses;
 
     public AuthService(DataAccessInterface dataAccess) {
+        this(dataAccess, DEFAULT_CACHE_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    public AuthService(DataAccessInterface dataAccess, int cacheSize, long ttlMillis) {
         this.dataAccess = dataAccess;
+        this.ttlMillis = ttlMillis;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedAuth> eldest) {
+                return size() > cacheSize;
+            }
+        };
     }
 
     public String validateAuthToken(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            throw new DataAccessException("Auth token not found");
+        }
+        long loadGeneration;
+        synchronized (this) {
+            CachedAuth cached = cache.get(authToken);
+            if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+                hits++;
+                return cached.username();
+            }
+            if (cached != null) {
+                cache.remove(authToken);
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
         AuthData authData = dataAccess.getAuth(authToken);
         if (authData == null) {
-            LOGGER.error("Auth token not found: {}", authToken);
+            LOGGER.error("Auth token not found");
             throw new DataAccessException("Auth token not found");
         }
-        LOGGER.info("Auth token validated: {}", authToken);
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                cache.put(authToken, new CachedAuth(authData.getUsername(), System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        LOGGER.debug("Auth token validated for user: {}", authData.getUsername());
         return authData.getUsername();
     }
 
     public void createAuth(AuthData auth) throws DataAccessException {
         dataAccess.createAuth(auth);
-        LOGGER.info("Auth token created: {}", auth.getAuthToken());
+        LOGGER.info("Auth token created for user: {}", auth.getUsername());
     }
 
     public void deleteAuth(String authToken) throws DataAccessException {
-        LOGGER.info("Attempting to delete auth token: {}", authToken);
-        dataAccess.deleteAuth(authToken);
-        LOGGER.info("Auth token deleted: {}", authToken);
+        invalidate(authToken);
+        try {
+            dataAccess.deleteAuth(authToken);
+        } finally {
+            invalidate(authToken);
+        }
+        LOGGER.info("Auth token deleted");
     }
 
     public void deleteAuthByUsername(String username) throws DataAccessException {
         LOGGER.info("Deleting all auth tokens for user: {}", username);
-        dataAccess.deleteAuthByUsername(username);
+        try {
+            dataAccess.deleteAuthByUsername(username);
+        } finally {
+            synchronized (this) {
+                cache.values().removeIf(cached -> cached.username().equals(username));
+                generation++;
+            }
+        }
         LOGGER.info("Deleted auth tokens for user: {}", username);
     }
+
+    /**
+     * Forgets every cached token, for when tokens were removed behind this service's back (e.g. a database clear).
+     */
+    public synchronized void invalidateAll() {
+        cache.clear();
+        generation++;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int getCacheSize() {
+        return cache.size();
+    }
+
+    private synchronized void invalidate(String authToken) {
+        cache.remove(authToken);
+        generation++;
+    }
 }
@@ -1,88 +1,227 @@
 package service;
 
-import com.google.gson.Gson;
 import dataaccess.DataAccessException;
 import dataaccess.DataAccessInterface;
 import model.GameData;
+import requests.ListGamesRequest;
+import results.ListGamesResult;
 import chess.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Games being played stay resident as live ChessGame objects, so a move is applied in memory instead of
+ * loading, deserializing and re-saving the row. Each move is persisted as one short entry in the game's move
+ * log; the full game state is only written as a snapshot every {@link #SNAPSHOT_INTERVAL} moves, or when
+ * something other than a move changes it. Loading a game reads the last snapshot and replays the moves after it.
+ * <br/>
+ * With a maximum staleness configured, pending moves are written by a background writer, batched per game.
+ * Leaving, resigning and {@link #shutdown()} flush the game straight away. Without one, every change is
+ * written before the call returns.
+ * <br/>
+ * A game leaves memory once it is written and either over, {@link #release released} by its last connection, or
+ * unused for the idle timeout; the next call that needs it loads it again.
+ */
 public class GameService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameService.class);
+    private static final int ROW_LOCK_STRIPES = 64;
+    static final int SNAPSHOT_INTERVAL = 32;
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 500;
+    static final long DEFAULT_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
     private final DataAccessInterface dataAccess;
-    private final Gson gson = new Gson();
+    private final Map<Integer, LiveGame> liveGames = new ConcurrentHashMap<>();
+    // serialize read-modify-write of a game row, so a flush and a join never overwrite each other's columns
+    // locks rather than monitors, so a virtual thread waiting on the data store under one does not pin its carrier
+    private final ReentrantLock[] rowLocks = new ReentrantLock[ROW_LOCK_STRIPES];
+    private final long maxStalenessMillis;
+    private final long idleNanos;
+    // runs the write-behind and idle eviction passes; null when there are neither
+    private final ScheduledExecutorService writer;
+
+    private static final class LiveGame {
+        private ChessGame game;
+        private final List<String> pendingMoves = new ArrayList<>();
+        private int movesSinceSnapshot;
+        private boolean snapshotDue;
+        // set once the game has left liveGames; whoever finds it set loads the game again
+        private boolean evicted;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        LiveGame(ChessGame game, int movesSinceSnapshot) {
+            this.game = game;
+            this.movesSinceSnapshot = movesSinceSnapshot;
+        }
+
+        boolean isDirty() {
+            return snapshotDue || !pendingMoves.isEmpty();
+        }
+    }
 
     public GameService(DataAccessInterface dataAccess) {
+        this(dataAccess, 0);
+    }
+
+    public GameService(DataAccessInterface dataAccess, long maxStalenessMillis) {
+        this(dataAccess, maxStalenessMillis, DEFAULT_IDLE_MILLIS);
+    }
+
+    /**
+     * @param maxStalenessMillis longest a move may wait before it is written to the data store; 0 writes
+     *                           every change synchronously
+     * @param idleMillis         how long an unused game stays in memory; 0 keeps it until it is over or released
+     */
+    public GameService(DataAccessInterface dataAccess, long maxStalenessMillis, long idleMillis) {
         this.dataAccess = dataAccess;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        for (int i = 0; i < rowLocks.length; i++) {
+            rowLocks[i] = new ReentrantLock();
+        }
+        if (maxStalenessMillis > 0 || idleMillis > 0) {
+            writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "game-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            writer = null;
+        }
+        if (maxStalenessMillis > 0) {
+            // a move waits at most one period before the next pass picks it up
+            long period = Math.max(maxStalenessMillis / 2, 1);
+            writer.scheduleWithFixedDelay(this::flushQuietly, period, period, TimeUnit.MILLISECONDS);
+        }
+        if (idleMillis > 0) {
+            long period = Math.max(idleMillis / 2, 1);
+            writer.scheduleWithFixedDelay(this::evictIdleQuietly, period, period, TimeUnit.MILLISECONDS);
+        }
     }
 
     public GameData createGame(String gameName) throws DataAccessException {
         ChessGame newGame = new ChessGame();
-        GameData gameData = new GameData(0, gameName, null, null, gson.toJson(newGame));
+        GameData gameData = new GameData(0, gameName, null, null, newGame.toBytes());
         dataAccess.createGame(gameData);
         return gameData;
     }
 
     public void joinGame(int gameID, String username, String playerColor) throws DataAccessException {
-        GameData gameData = dataAccess.getGame(gameID);
-        if (gameData == null) {
-            throw new DataAccessException("Game not found");
-        }
-
-        if (playerColor == null) {
-            throw new DataAccessException("Invalid player color");
-        }
+        ReentrantLock rowLock = rowLock(gameID);
+        rowLock.lock();
+        try {
+            GameData gameData = dataAccess.getGame(gameID);
+            if (gameData == null) {
+                throw new DataAccessException("Game not found");
+            }
 
-        if (playerColor.equalsIgnoreCase("WHITE")) {
-            if (gameData.getWhiteUsername() != null) {
-                throw new DataAccessException("White player already taken");
+            if (playerColor == null) {
+                throw new DataAccessException("Invalid player color");
             }
-            gameData.setWhiteUsername(username);
-        } else if (playerColor.equalsIgnoreCase("BLACK")) {
-            if (gameData.getBlackUsername() != null) {
-                throw new DataAccessException("Black player already taken");
+
+            if (playerColor.equalsIgnoreCase("WHITE")) {
+                if (gameData.getWhiteUsername() != null) {
+                    throw new DataAccessException("White player already taken");
+                }
+                gameData.setWhiteUsername(username);
+            } else if (playerColor.equalsIgnoreCase("BLACK")) {
+                if (gameData.getBlackUsername() != null) {
+                    throw new DataAccessException("Black player already taken");
+                }
+                gameData.setBlackUsername(username);
+            } else {
+                throw new DataAccessException("Invalid player color");
             }
-            gameData.setBlackUsername(username);
-        } else {
-            throw new DataAccessException("Invalid player color");
-        }
 
-        dataAccess.updateGame(gameData);
+            dataAccess.updateGame(gameData);
+        } finally {
+            rowLock.unlock();
+        }
     }
 
     public List<GameData> listGames() throws DataAccessException {
         return dataAccess.listGames();
     }
 
+    /**
+     * One page of the game list, names and players only.
+     */
+    public ListGamesResult listGames(ListGamesRequest request) throws DataAccessException {
+        int limit = request.limit() == null ? DEFAULT_PAGE_SIZE : request.limit();
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new DataAccessException("Invalid page size");
+        }
+        int after = request.cursor() == null ? 0 : request.cursor();
+        // one extra row tells us whether another page follows
+        List<GameData> games = dataAccess.listGameSummaries(after, limit + 1, request.openSeats(), request.player());
+        if (games.size() <= limit) {
+            return new ListGamesResult(games, null, limit);
+        }
+        List<GameData> page = games.subList(0, limit);
+        return new ListGamesResult(page, page.get(limit - 1).getGameID(), limit);
+    }
+
     public void clear() throws DataAccessException {
+        for (LiveGame live : liveGames.values()) {
+            synchronized (live) {
+                live.evicted = true;
+            }
+        }
+        liveGames.clear();
         dataAccess.clear();
     }
 
     public ChessGame loadGame(int gameID) throws DataAccessException {
-        GameData gameData = dataAccess.getGame(gameID);
-        if (gameData == null) {
-            throw new DataAccessException("Game not found");
-        }
-        return gson.fromJson(gameData.getGameState(), ChessGame.class);
+        return live(gameID).game;
     }
 
     public void saveGame(int gameID, ChessGame game) throws DataAccessException {
-        GameData gameData = dataAccess.getGame(gameID);
-        if (gameData == null) {
-            throw new DataAccessException("Game not found");
+        while (true) {
+            LiveGame live = live(gameID);
+            synchronized (live) {
+                if (live.evicted) {
+                    continue;
+                }
+                live.game = game;
+                live.snapshotDue = true;
+            }
+            break;
+        }
+        if (maxStalenessMillis == 0) {
+            flush(gameID);
         }
-        gameData.setGameState(gson.toJson(game));
-        dataAccess.updateGame(gameData);
     }
 
     public boolean isValidGameID(int gameID) throws DataAccessException {
-        return dataAccess.getGame(gameID) != null;
+        return liveGames.containsKey(gameID) || dataAccess.getGame(gameID) != null;
     }
 
     public ChessGame processMove(int gameID, ChessMove move) throws DataAccessException, InvalidMoveException {
-        ChessGame game = loadGame(gameID);
-        game.makeMove(move);
-        saveGame(gameID, game);
+        ChessGame game;
+        while (true) {
+            LiveGame live = live(gameID);
+            synchronized (live) {
+                if (live.evicted) {
+                    continue;
+                }
+                live.game.makeMove(move);
+                live.pendingMoves.add(move.toUci());
+                game = live.game;
+            }
+            break;
+        }
+        if (maxStalenessMillis == 0) {
+            flush(gameID);
+        }
         return game;
     }
 
@@ -101,19 +240,238 @@ public class GameService {
     }
 
     public void removePlayer(int gameID, String username) throws DataAccessException {
-        GameData gameData = dataAccess.getGame(gameID);
-        if (gameData == null) {
-            throw new DataAccessException("Game not found");
+        ReentrantLock rowLock = rowLock(gameID);
+        rowLock.lock();
+        try {
+            GameData gameData = dataAccess.getGame(gameID);
+            if (gameData == null) {
+                throw new DataAccessException("Game not found");
+            }
+
+            if (username.equals(gameData.getWhiteUsername())) {
+                gameData.setWhiteUsername(null);
+            } else if (username.equals(gameData.getBlackUsername())) {
+                gameData.setBlackUsername(null);
+            } else {
+            }
+
+            dataAccess.updateGame(gameData);
+            flush(gameID);
+        } finally {
+            rowLock.unlock();
         }
+    }
 
-        if (username.equals(gameData.getWhiteUsername())) {
-            gameData.setWhiteUsername(null);
-        } else if (username.equals(gameData.getBlackUsername())) {
-            gameData.setBlackUsername(null);
-        } else {
+    /**
+     * Writes the game's pending moves, and a snapshot if one is due, before returning. A game that is over leaves
+     * memory once written.
+     */
+    public void flush(int gameID) throws DataAccessException {
+        ReentrantLock rowLock = rowLock(gameID);
+        rowLock.lock();
+        try {
+            LiveGame live = liveGames.get(gameID);
+            if (live == null) {
+                return;
+            }
+            write(gameID, live);
+            boolean over;
+            synchronized (live) {
+                over = live.game.isGameOver();
+            }
+            if (over) {
+                evictIfClean(gameID, live);
+            }
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the game and drops it from memory, for when nobody is connected to it any more.
+     */
+    public void release(int gameID) throws DataAccessException {
+        release(gameID, false);
+    }
+
+    public void flushAll() throws DataAccessException {
+        DataAccessException failure = null;
+        for (int gameID : liveGames.keySet()) {
+            try {
+                flush(gameID);
+            } catch (DataAccessException e) {
+                failure = e;
+            }
         }
+        if (failure != null) {
+            throw failure;
+        }
+    }
 
-        dataAccess.updateGame(gameData);
+    /**
+     * Stops the background writer and writes every pending move.
+     */
+    public void shutdown() throws DataAccessException {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(maxStalenessMillis + 5000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushAll();
+    }
+
+    /**
+     * The number of games held in memory.
+     */
+    int residentGames() {
+        return liveGames.size();
+    }
+
+    private LiveGame live(int gameID) throws DataAccessException {
+        LiveGame live = liveGames.get(gameID);
+        if (live != null) {
+            live.lastUsedNanos = System.nanoTime();
+            return live;
+        }
+        ReentrantLock rowLock = rowLock(gameID);
+        rowLock.lock();
+        try {
+            live = liveGames.get(gameID);
+            if (live == null) {
+                GameData gameData = dataAccess.getGame(gameID);
+                if (gameData == null) {
+                    throw new DataAccessException("Game not found");
+                }
+                live = replay(gameID, gameData.getGameState());
+                liveGames.put(gameID, live);
+            }
+            return live;
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    private LiveGame replay(int gameID, byte[] snapshot) throws DataAccessException {
+        ChessGame game;
+        try {
+            game = ChessGame.fromBytes(snapshot);
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Snapshot of game {} does not decode: {}", gameID, e.getMessage());
+            throw new DataAccessException("Corrupt snapshot for game " + gameID, e);
+        }
+        List<String> moves = dataAccess.getMovesSinceSnapshot(gameID);
+        for (String move : moves) {
+            try {
+                game.makeMove(ChessMove.fromUci(move));
+            } catch (InvalidMoveException | IllegalArgumentException e) {
+                LOGGER.error("Move log of game {} does not replay at {}: {}", gameID, move, e.getMessage());
+                throw new DataAccessException("Corrupt move log for game " + gameID, e);
+            }
+        }
+        return new LiveGame(game, moves.size());
     }
 
+    /**
+     * Must hold the game's row lock.
+     */
+    private void write(int gameID, LiveGame live) throws DataAccessException {
+        List<String> moves;
+        byte[] snapshot = null;
+        synchronized (live) {
+            if (!live.isDirty()) {
+                return;
+            }
+            moves = new ArrayList<>(live.pendingMoves);
+            live.pendingMoves.clear();
+            live.movesSinceSnapshot += moves.size();
+            if (live.snapshotDue || live.movesSinceSnapshot >= SNAPSHOT_INTERVAL) {
+                // taken together with the moves above, so it covers exactly what the log will hold
+                snapshot = live.game.toBytes();
+                live.snapshotDue = false;
+            }
+        }
+
+        if (!moves.isEmpty()) {
+            try {
+                dataAccess.appendMoves(gameID, moves);
+            } catch (DataAccessException | RuntimeException e) {
+                synchronized (live) {
+                    live.pendingMoves.addAll(0, moves);
+                    live.movesSinceSnapshot -= moves.size();
+                    live.snapshotDue |= snapshot != null;
+                }
+                throw e;
+            }
+        }
+        if (snapshot != null) {
+            try {
+                dataAccess.saveSnapshot(gameID, snapshot);
+                synchronized (live) {
+                    live.movesSinceSnapshot = 0;
+                }
+            } catch (DataAccessException | RuntimeException e) {
+                synchronized (live) {
+                    live.snapshotDue = true;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Writes the game and drops it from memory, if it is still there and, with onlyIfIdle, still unused.
+     */
+    private void release(int gameID, boolean onlyIfIdle) throws DataAccessException {
+        ReentrantLock rowLock = rowLock(gameID);
+        rowLock.lock();
+        try {
+            LiveGame live = liveGames.get(gameID);
+            if (live == null || onlyIfIdle && System.nanoTime() - live.lastUsedNanos < idleNanos) {
+                return;
+            }
+            write(gameID, live);
+            evictIfClean(gameID, live);
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    /**
+     * Must hold the game's row lock, so no flush or load of the game runs meanwhile. A move that arrives after the
+     * write above keeps the game resident.
+     */
+    private void evictIfClean(int gameID, LiveGame live) {
+        synchronized (live) {
+            if (live.isDirty()) {
+                return;
+            }
+            live.evicted = true;
+        }
+        liveGames.remove(gameID, live);
+    }
+
+    private ReentrantLock rowLock(int gameID) {
+        return rowLocks[Math.floorMod(gameID, rowLocks.length)];
+    }
+
+    private void flushQuietly() {
+        try {
+            flushAll();
+        } catch (DataAccessException | RuntimeException e) {
+            LOGGER.error("Write-behind flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void evictIdleQuietly() {
+        for (int gameID : liveGames.keySet()) {
+            try {
+                release(gameID, true);
+            } catch (DataAccessException | RuntimeException e) {
+                LOGGER.error("Writing idle game {} failed, keeping it in memory: {}", gameID, e.getMessage());
+            }
+        }
+    }
 }
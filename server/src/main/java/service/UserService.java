@@ -12,10 +12,19 @@ import java.util.UUID;
 
 public class UserService {
     private final DataAccessInterface dataAccess;
+    private final AuthService authService;
     private static final Logger LOGGER = LoggerFactory.getLogger(UserService.class);
 
     public UserService(DataAccessInterface dataAccess) {
+        this(dataAccess, new AuthService(dataAccess));
+    }
+
+    /**
+     * Tokens are created and deleted through authService so its token cache never outlives a logout.
+     */
+    public UserService(DataAccessInterface dataAccess, AuthService authService) {
         this.dataAccess = dataAccess;
+        this.authService = authService;
     }
 
     public AuthData register(UserData user) throws DataAccessException {
@@ -29,7 +38,7 @@ public class UserService {
                 dataAccess.createUser(user);
                 String authToken = UUID.randomUUID().toString();
                 AuthData auth = new AuthData(authToken, user.getUsername());
-                dataAccess.createAuth(auth);
+                authService.createAuth(auth);
                 LOGGER.info("User registered successfully: {}", user.getUsername());
                 return auth;
             } else {
@@ -46,14 +55,13 @@ public class UserService {
         }
         String authToken = UUID.randomUUID().toString();
         AuthData auth = new AuthData(authToken, username);
-        dataAccess.createAuth(auth);
-        LOGGER.info("User logged in successfully: {} with new token: {}", username, authToken);
+        authService.createAuth(auth);
+        LOGGER.info("User logged in successfully: {}", username);
         return auth;
     }
 
     public void logout(String authToken) throws DataAccessException {
-        LOGGER.info("Attempting to log out with token: {}", authToken);
-        dataAccess.deleteAuth(authToken);
-        LOGGER.info("User logged out successfully, auth token deleted: {}", authToken);
+        authService.deleteAuth(authToken);
+        LOGGER.info("User logged out successfully");
     }
 }
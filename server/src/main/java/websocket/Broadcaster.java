@@ -0,0 +1,101 @@
+package websocket;
+
+import com.google.gson.Gson;
+import org.eclipse.jetty.websocket.api.Session;
+import websocket.messages.ServerMessage;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Encodes each server message once and hands the same text to every recipient. Counts how many bytes and how
+ * much encoding time the shared payloads saved over encoding per recipient.
+ */
+public final class Broadcaster {
+    private static final Gson GSON = new Gson();
+
+    /**
+     * @param bytesSaved        bytes that would have been encoded again had each recipient got its own copy
+     * @param encodeMillisSaved encoding time the same way
+     */
+    public record Stats(long messages, long deliveries, long bytesEncoded, long bytesSaved, double encodeMillis,
+                        double encodeMillisSaved) {
+    }
+
+    /**
+     * A message encoded once, shared by every send of it.
+     */
+    record Payload(ServerMessage.ServerMessageType type, String text, int bytes, long encodeNanos) {
+    }
+
+    private final BiConsumer<Session, Payload> transport;
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder bytesEncoded = new LongAdder();
+    private final LongAdder bytesDelivered = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAdder deliveredEncodeNanos = new LongAdder();
+
+    /**
+     * @param transport writes a payload to one session
+     */
+    Broadcaster(BiConsumer<Session, Payload> transport) {
+        this.transport = transport;
+    }
+
+    Payload encode(ServerMessage message) {
+        long start = System.nanoTime();
+        String text = GSON.toJson(message);
+        long elapsed = System.nanoTime() - start;
+        Payload payload = new Payload(message.getServerMessageType(), text, utf8Length(text), elapsed);
+        messages.increment();
+        bytesEncoded.add(payload.bytes());
+        encodeNanos.add(elapsed);
+        return payload;
+    }
+
+    void send(Session session, Payload payload) {
+        deliveries.increment();
+        bytesDelivered.add(payload.bytes());
+        deliveredEncodeNanos.add(payload.encodeNanos());
+        transport.accept(session, payload);
+    }
+
+    /**
+     * Sends the payload to every open session in the room but except, which may be null.
+     */
+    void broadcast(GameRoom room, Session except, Payload payload) {
+        if (room != null) {
+            room.forEachOpen(except, (session, member) -> send(session, payload));
+        }
+    }
+
+    public Stats stats() {
+        long encoded = bytesEncoded.sum();
+        long nanos = encodeNanos.sum();
+        return new Stats(messages.sum(), deliveries.sum(), encoded, bytesDelivered.sum() - encoded, nanos / 1e6,
+                (deliveredEncodeNanos.sum() - nanos) / 1e6);
+    }
+
+    /**
+     * The size of text as a UTF-8 frame, without encoding it.
+     */
+    static int utf8Length(String text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,104 @@
+package websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs each game's commands one at a time, in the order they were submitted, while different games run in
+ * parallel. A game has a mailbox only while it has commands waiting or running; one task drains it, so at most one
+ * thread works on a game at once. The mailbox map's per-key compute is the only synchronization, so there is no
+ * lock shared between games.
+ */
+final class GameMailboxes {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameMailboxes.class);
+
+    private static final class Mailbox {
+        private final Queue<Runnable> commands = new ArrayDeque<>();
+    }
+
+    private final Executor executor;
+    // a mailbox is only read or changed inside compute for its game
+    private final ConcurrentMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * @param executor runs the drain task of each busy game
+     */
+    GameMailboxes(Executor executor) {
+        this.executor = executor;
+    }
+
+    void submit(int gameID, Runnable command) {
+        boolean[] start = new boolean[1];
+        mailboxes.compute(gameID, (id, mailbox) -> {
+            if (mailbox == null) {
+                // nobody is draining this game: the caller starts a drain task
+                mailbox = new Mailbox();
+                start[0] = true;
+            }
+            mailbox.commands.add(command);
+            return mailbox;
+        });
+        if (start[0] && !startDrain(gameID)) {
+            throw new RejectedExecutionException("No thread to run commands for game " + gameID);
+        }
+    }
+
+    /**
+     * The number of games with commands waiting or running.
+     */
+    int busyGames() {
+        return mailboxes.size();
+    }
+
+    /**
+     * @return false if the executor refused the task; the mailbox is then dropped, so the next submit starts over
+     */
+    private boolean startDrain(int gameID) {
+        try {
+            executor.execute(() -> drain(gameID));
+            return true;
+        } catch (RejectedExecutionException e) {
+            Mailbox dropped = mailboxes.remove(gameID);
+            LOGGER.error("Could not start commands for game {}, dropping {} of them", gameID,
+                    dropped == null ? 0 : dropped.commands.size(), e);
+            return false;
+        }
+    }
+
+    private void drain(int gameID) {
+        boolean emptied = false;
+        try {
+            while (true) {
+                Runnable[] next = new Runnable[1];
+                // an empty mailbox is removed in the same step, so a later submit starts a new drain
+                mailboxes.computeIfPresent(gameID, (id, mailbox) -> {
+                    next[0] = mailbox.commands.poll();
+                    return next[0] == null ? null : mailbox;
+                });
+                if (next[0] == null) {
+                    emptied = true;
+                    return;
+                }
+                try {
+                    next[0].run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Command for game {} failed", gameID, e);
+                }
+            }
+        } finally {
+            if (!emptied) {
+                // an Error ended this drain; the mailbox is still there, so without a new drain the game would
+                // never run another command
+                LOGGER.error("Commands for game {} stopped abnormally, restarting them", gameID);
+                startDrain(gameID);
+            }
+        }
+    }
+}
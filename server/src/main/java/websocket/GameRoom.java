@@ -0,0 +1,69 @@
+package websocket;
+
+import chess.ChessGame;
+import org.eclipse.jetty.websocket.api.Session;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The sessions connected to one game, players and observers alike. Members are held in a concurrent map, so
+ * sessions join and leave without locking, and a broadcast walks only this game's members while others change.
+ */
+final class GameRoom {
+
+    /**
+     * A connected user; color is null for an observer.
+     */
+    record Member(String username, ChessGame.TeamColor color) {
+        boolean isPlayer() {
+            return color != null;
+        }
+    }
+
+    private final int gameID;
+    private final ConcurrentMap<Session, Member> members = new ConcurrentHashMap<>();
+
+    GameRoom(int gameID) {
+        this.gameID = gameID;
+    }
+
+    int gameID() {
+        return gameID;
+    }
+
+    void join(Session session, Member member) {
+        members.put(session, member);
+    }
+
+    /**
+     * @return the member that left, or null if the session was not in the room
+     */
+    Member leave(Session session) {
+        return members.remove(session);
+    }
+
+    Member member(Session session) {
+        return members.get(session);
+    }
+
+    boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    int size() {
+        return members.size();
+    }
+
+    /**
+     * Calls action for every open session in the room other than except, which may be null.
+     */
+    void forEachOpen(Session except, BiConsumer<Session, Member> action) {
+        members.forEach((session, member) -> {
+            if (session != except && session.isOpen()) {
+                action.accept(session, member);
+            }
+        });
+    }
+}
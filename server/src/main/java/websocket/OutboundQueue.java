@@ -0,0 +1,160 @@
+package websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import websocket.messages.ServerMessage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The messages waiting to go out on one session. Senders only queue, and at most one asynchronous write is in
+ * flight; its callback starts the next. A slow reader therefore fills its own queue and never holds up the thread
+ * that produced the message. When the queue is full, the overflow policy decides what gives.
+ */
+public final class OutboundQueue implements WriteCallback {
+
+    public enum OverflowPolicy {
+        /**
+         * Drop board states still waiting to go out, since each LOAD_GAME supersedes the ones before it. If there is
+         * nothing to drop, the session is disconnected.
+         */
+        DROP_STALE_STATES,
+        /**
+         * Disconnect the session.
+         */
+        DISCONNECT
+    }
+
+    public record Settings(int capacity, OverflowPolicy overflowPolicy) {
+    }
+
+    public record Stats(int sessions, int queued, long dropped, long disconnected) {
+    }
+
+    /**
+     * Drop and disconnect counts shared by every queue of a handler.
+     */
+    static final class Counters {
+        final LongAdder dropped = new LongAdder();
+        final LongAdder disconnected = new LongAdder();
+    }
+
+    private final Session session;
+    private final Settings settings;
+    private final Counters counters;
+
+    private final ArrayDeque<Broadcaster.Payload> queue = new ArrayDeque<>();
+    private boolean writing;
+    private boolean closed;
+
+    OutboundQueue(Session session, Settings settings, Counters counters) {
+        if (settings.capacity() < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.session = session;
+        this.settings = settings;
+        this.counters = counters;
+    }
+
+    /**
+     * Queues the payload and returns without waiting for it to be written.
+     */
+    void offer(Broadcaster.Payload payload) {
+        boolean overflowed = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (queue.size() >= settings.capacity() && !makeRoom(payload)) {
+                overflowed = true;
+                closed = true;
+                queue.clear();
+            } else {
+                queue.add(payload);
+                if (writing) {
+                    return;
+                }
+                writing = true;
+            }
+        }
+        if (overflowed) {
+            disconnect();
+        } else {
+            writeNext();
+        }
+    }
+
+    synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * Discards what is queued; nothing more is written.
+     */
+    synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    @Override
+    public void writeSuccess() {
+        writeNext();
+    }
+
+    @Override
+    public void writeFailed(Throwable cause) {
+        System.out.println("WebSocket write failed: " + cause.getMessage());
+        close();
+    }
+
+    /**
+     * Drops every queued board state that a later one supersedes, counting payload as the latest if it is one.
+     */
+    private boolean makeRoom(Broadcaster.Payload payload) {
+        if (settings.overflowPolicy() != OverflowPolicy.DROP_STALE_STATES) {
+            return false;
+        }
+        boolean superseded = payload.type() == ServerMessage.ServerMessageType.LOAD_GAME;
+        int dropped = 0;
+        for (Iterator<Broadcaster.Payload> it = queue.descendingIterator(); it.hasNext(); ) {
+            if (it.next().type() == ServerMessage.ServerMessageType.LOAD_GAME) {
+                if (superseded) {
+                    it.remove();
+                    dropped++;
+                }
+                superseded = true;
+            }
+        }
+        counters.dropped.add(dropped);
+        return dropped > 0;
+    }
+
+    private void writeNext() {
+        Broadcaster.Payload next;
+        synchronized (this) {
+            next = closed ? null : queue.poll();
+            if (next == null) {
+                writing = false;
+                return;
+            }
+        }
+        try {
+            session.getRemote().sendString(next.text(), this);
+        } catch (RuntimeException e) {
+            writeFailed(e);
+        }
+    }
+
+    private void disconnect() {
+        counters.disconnected.increment();
+        System.out.println("Disconnecting slow WebSocket consumer: " + session.getRemoteAddress());
+        try {
+            session.disconnect();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package websocket;
 
 import chess.ChessGame;
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import dataaccess.DataAccessException;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.*;
@@ -11,18 +13,25 @@ import websocket.commands.*;
 import websocket.messages.*;
 import websocket.messages.Error;
 
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
 
 @WebSocket
 public class WebSocketHandler {
 
-    private static final Map<Session, String> SESSION_USER_MAP = new HashMap<>();
-    private static final Map<String, Integer> USER_GAME_MAP = new ConcurrentHashMap<>();
+    // each game's connected sessions, and the room each session is in
+    private static final ConcurrentMap<Integer, GameRoom> ROOMS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Session, GameRoom> SESSION_ROOMS = new ConcurrentHashMap<>();
     private static final Gson GSON = new Gson();
+    private static final Broadcaster BROADCASTER = new Broadcaster(WebSocketHandler::enqueue);
+    private static final GameMailboxes MAILBOXES = new GameMailboxes(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("game-mailbox-", 0).factory()));
+    private static final ConcurrentMap<Session, Integer> SESSION_LAST_GAME = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Session, OutboundQueue> OUTBOUND = new ConcurrentHashMap<>();
+    private static final OutboundQueue.Counters OUTBOUND_COUNTERS = new OutboundQueue.Counters();
+    private static volatile OutboundQueue.Settings outboundSettings =
+            new OutboundQueue.Settings(64, OutboundQueue.OverflowPolicy.DROP_STALE_STATES);
 
     private static GameService gameService;
     private static AuthService authService;
@@ -35,16 +44,44 @@ public class WebSocketHandler {
         WebSocketHandler.authService = authService;
     }
 
+    /**
+     * Applies to sessions that connect afterwards.
+     */
+    public static void setOutboundSettings(OutboundQueue.Settings settings) {
+        outboundSettings = settings;
+    }
+
+    public static Broadcaster.Stats broadcastStats() {
+        return BROADCASTER.stats();
+    }
+
+    public static OutboundQueue.Stats outboundStats() {
+        int queued = 0;
+        for (OutboundQueue queue : OUTBOUND.values()) {
+            queued += queue.size();
+        }
+        return new OutboundQueue.Stats(OUTBOUND.size(), queued, OUTBOUND_COUNTERS.dropped.sum(),
+                OUTBOUND_COUNTERS.disconnected.sum());
+    }
+
     @OnWebSocketConnect
     public void onConnect(Session session) {
         System.out.println("WebSocket connection opened: " + session.getRemoteAddress().getAddress());
+        OUTBOUND.put(session, new OutboundQueue(session, outboundSettings, OUTBOUND_COUNTERS));
     }
 
     @OnWebSocketMessage
     public void onMessage(Session session, String message) {
         System.out.println("Received message: " + message);
-        UserGameCommand command = GSON.fromJson(message, UserGameCommand.class);
+        JsonObject json = JsonParser.parseString(message).getAsJsonObject();
+        UserGameCommand command = GSON.fromJson(json, UserGameCommand.class);
+        // commands for one game run in arrival order, one at a time; other games are not held up
+        int gameID = json.has("gameID") ? json.get("gameID").getAsInt() : 0;
+        SESSION_LAST_GAME.put(session, gameID);
+        MAILBOXES.submit(gameID, () -> dispatch(session, json, command));
+    }
 
+    private void dispatch(Session session, JsonObject json, UserGameCommand command) {
         try {
             validateCommand(command);
         } catch (Exception e) {
@@ -54,16 +91,16 @@ public class WebSocketHandler {
 
         switch (command.getCommandType()) {
             case CONNECT:
-                handleConnect(session, GSON.fromJson(message, Connect.class));
+                handleConnect(session, GSON.fromJson(json, Connect.class));
                 break;
             case MAKE_MOVE:
-                handleMakeMove(session, GSON.fromJson(message, MakeMove.class));
+                handleMakeMove(session, GSON.fromJson(json, MakeMove.class));
                 break;
             case LEAVE:
-                handleLeave(session, GSON.fromJson(message, Leave.class));
+                handleLeave(session, GSON.fromJson(json, Leave.class));
                 break;
             case RESIGN:
-                handleResign(session, GSON.fromJson(message, Resign.class));
+                handleResign(session, GSON.fromJson(json, Resign.class));
                 break;
             default:
                 sendErrorMessage(session, "Unknown command type.");
@@ -74,8 +111,15 @@ public class WebSocketHandler {
     @OnWebSocketClose
     public void onClose(Session session, int statusCode, String reason) {
         System.out.println("WebSocket connection closed: " + session.getRemoteAddress().getAddress());
-        String username = SESSION_USER_MAP.remove(session);
-        USER_GAME_MAP.remove(username);
+        // behind the session's last command, so a LEAVE sent just before closing still sees its room
+        Integer gameID = SESSION_LAST_GAME.remove(session);
+        MAILBOXES.submit(gameID == null ? 0 : gameID, () -> {
+            leaveRoom(session);
+            OutboundQueue queue = OUTBOUND.remove(session);
+            if (queue != null) {
+                queue.close();
+            }
+        });
     }
 
     @OnWebSocketError
@@ -113,11 +157,15 @@ public class WebSocketHandler {
                 sendErrorMessage(session, "Invalid game ID.");
                 return;
             }
-            SESSION_USER_MAP.put(session, username);
-            USER_GAME_MAP.put(username, command.getGameID());
+            ChessGame.TeamColor color;
+            try {
+                color = gameService.getPlayerTeam(command.getGameID(), username);
+            } catch (DataAccessException e) {
+                color = null;
+            }
+            joinRoom(session, command.getGameID(), new GameRoom.Member(username, color));
             ChessGame game = gameService.loadGame(command.getGameID());
-            LoadGame message = new LoadGame(game);
-            sendMessage(session, GSON.toJson(message));
+            BROADCASTER.send(session, BROADCASTER.encode(new LoadGame(game)));
             broadcastNotificationExceptSender(session, username + " connected to the game.", command.getGameID());
         } catch (Exception e) {
             sendErrorMessage(session, "Failed to connect: " + e.getMessage());
@@ -126,11 +174,12 @@ public class WebSocketHandler {
 
     private void handleMakeMove(Session session, MakeMove command) {
         try {
-            String username = SESSION_USER_MAP.get(session);
-            if (username == null) {
+            GameRoom.Member member = member(session);
+            if (member == null) {
                 sendErrorMessage(session, "User not authenticated.");
                 return;
             }
+            String username = member.username();
 
             ChessGame game = gameService.loadGame(command.getGameID());
             if (game.getTeamTurn() != gameService.getPlayerTeam(command.getGameID(), username)) {
@@ -145,11 +194,12 @@ public class WebSocketHandler {
 
             game = gameService.processMove(command.getGameID(), command.getMove());
 
-            LoadGame loadGameMessage = new LoadGame(game);
-            sendMessage(session, GSON.toJson(loadGameMessage));
+            // one encoding of the new state for the mover and everyone watching
+            Broadcaster.Payload loadGame = BROADCASTER.encode(new LoadGame(game));
+            BROADCASTER.send(session, loadGame);
+            BROADCASTER.broadcast(ROOMS.get(command.getGameID()), session, loadGame);
 
             String moveDescription = String.format("%s moved from %s to %s", username, command.getMove().getStartPosition(), command.getMove().getEndPosition());
-            broadcastMessageToAllExceptSender(session, GSON.toJson(loadGameMessage), command.getGameID());
             broadcastNotificationExceptSender(session, moveDescription, command.getGameID());
         } catch (Exception e) {
             sendErrorMessage(session, "Failed to make move: " + e.getMessage());
@@ -158,16 +208,15 @@ public class WebSocketHandler {
 
     private void handleLeave(Session session, Leave command) {
         try {
-            String username = SESSION_USER_MAP.get(session);
-            if (username == null) {
+            GameRoom room = SESSION_ROOMS.get(session);
+            GameRoom.Member member = leaveRoom(session);
+            if (member == null) {
                 sendErrorMessage(session, "User not authenticated.");
                 return;
             }
+            String username = member.username();
 
-            SESSION_USER_MAP.remove(session);
-            Integer gameID = USER_GAME_MAP.remove(username);
-
-            if (gameID == null || gameID != command.getGameID()) {
+            if (room.gameID() != command.getGameID()) {
                 sendErrorMessage(session, "User not part of this game.");
                 return;
             }
@@ -181,11 +230,12 @@ public class WebSocketHandler {
 
     private void handleResign(Session session, Resign command) {
         try {
-            String username = SESSION_USER_MAP.get(session);
-            if (username == null) {
+            GameRoom.Member member = member(session);
+            if (member == null) {
                 sendErrorMessage(session, "User not authenticated.");
                 return;
             }
+            String username = member.username();
 
             ChessGame game = gameService.loadGame(command.getGameID());
             System.out.println("Handling resign for user: " + username + ", gameID: " + command.getGameID());
@@ -206,6 +256,7 @@ public class WebSocketHandler {
 
             game.setGameOver(true);
             gameService.saveGame(command.getGameID(), game);
+            gameService.flush(command.getGameID());
             System.out.println("User " + username + " resigned. Game set to over.");
             broadcastNotification(session, username + " resigned from the game.", command.getGameID());
         } catch (Exception e) {
@@ -213,46 +264,70 @@ public class WebSocketHandler {
         }
     }
 
-    private void sendMessage(Session session, String message) {
-        try {
-            session.getRemote().sendString(message);
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Hands the payload to the session's outbound queue; a closed session has none, and the payload is dropped.
+     */
+    private static void enqueue(Session session, Broadcaster.Payload payload) {
+        OutboundQueue queue = OUTBOUND.get(session);
+        if (queue != null) {
+            queue.offer(payload);
         }
     }
 
     private void sendErrorMessage(Session session, String errorMessage) {
         System.out.println("Sending error message: " + errorMessage);
-        Error message = new Error(errorMessage);
-        sendMessage(session, GSON.toJson(message));
+        BROADCASTER.send(session, BROADCASTER.encode(new Error(errorMessage)));
     }
 
     private void broadcastNotification(Session sender, String notification, int gameID) {
-        Notification message = new Notification(notification);
-        for (Session session : SESSION_USER_MAP.keySet()) {
-            String username = SESSION_USER_MAP.get(session);
-            if (session.isOpen() && USER_GAME_MAP.get(username) == gameID) {
-                sendMessage(session, GSON.toJson(message));
-            }
-        }
+        BROADCASTER.broadcast(ROOMS.get(gameID), null, BROADCASTER.encode(new Notification(notification)));
     }
 
     private void broadcastNotificationExceptSender(Session sender, String notification, int gameID) {
-        Notification message = new Notification(notification);
-        for (Session session : SESSION_USER_MAP.keySet()) {
-            String username = SESSION_USER_MAP.get(session);
-            if (session.isOpen() && !session.equals(sender) && USER_GAME_MAP.get(username) == gameID) {
-                sendMessage(session, GSON.toJson(message));
-            }
+        BROADCASTER.broadcast(ROOMS.get(gameID), sender, BROADCASTER.encode(new Notification(notification)));
+    }
+
+    private static GameRoom.Member member(Session session) {
+        GameRoom room = SESSION_ROOMS.get(session);
+        return room == null ? null : room.member(session);
+    }
+
+    private static void joinRoom(Session session, int gameID, GameRoom.Member member) {
+        leaveRoom(session);
+        GameRoom room = ROOMS.compute(gameID, (id, existing) -> {
+            GameRoom joined = existing == null ? new GameRoom(id) : existing;
+            joined.join(session, member);
+            return joined;
+        });
+        SESSION_ROOMS.put(session, room);
+        if (!session.isOpen()) {
+            // closed while the connect was queued; its cleanup may already have run
+            leaveRoom(session);
         }
     }
 
-    private void broadcastMessageToAllExceptSender(Session sender, String message, int gameID) {
-        for (Session session : SESSION_USER_MAP.keySet()) {
-            String username = SESSION_USER_MAP.get(session);
-            if (session.isOpen() && !session.equals(sender) && USER_GAME_MAP.get(username) == gameID) {
-                sendMessage(session, message);
+    /**
+     * @return the member the session was, or null if it was in no room
+     */
+    private static GameRoom.Member leaveRoom(Session session) {
+        GameRoom room = SESSION_ROOMS.remove(session);
+        if (room == null) {
+            return null;
+        }
+        GameRoom.Member[] left = new GameRoom.Member[1];
+        // an empty room is dropped in the same atomic step, so a concurrent join never lands in a discarded room
+        GameRoom remaining = ROOMS.computeIfPresent(room.gameID(), (id, current) -> {
+            left[0] = current.leave(session);
+            return current.isEmpty() ? null : current;
+        });
+        if (remaining == null && gameService != null) {
+            // nobody is watching the game any more, so it need not stay in memory
+            try {
+                gameService.release(room.gameID());
+            } catch (DataAccessException e) {
+                System.out.println("Failed to release game " + room.gameID() + ": " + e.getMessage());
             }
         }
+        return left[0];
     }
 }
@@ -0,0 +1,214 @@
+package dataaccess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchWriterTest {
+    private static final int MISSING_GAME = 99;
+
+    private final FakeDatabase database = new FakeDatabase();
+    private ExecutorService executor;
+    private BatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+        executor.shutdownNow();
+    }
+
+    private Future<?> write(String sql, int gameID, String value) {
+        return executor.submit(() -> {
+            writer.write(sql, gameID, List.of(stmt -> {
+                stmt.setInt(1, gameID);
+                stmt.setString(2, value);
+            }), "Game not found");
+            return null;
+        });
+    }
+
+    @Test
+    void testConcurrentWritesShareTransaction() throws Exception {
+        writer = new BatchWriter(database::connection, new BatchWriter.Settings(100, 200, 5000));
+        List<Future<?>> futures = new ArrayList<>();
+        for (int gameID = 1; gameID <= 10; gameID++) {
+            futures.add(write("INSERT", gameID, "e2e4"));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        BatchWriter.Stats stats = writer.stats();
+        assertEquals(10, stats.writes());
+        assertTrue(stats.maxBatchSize() > 1);
+        assertEquals(stats.flushes(), database.commits);
+        assertTrue(database.commits < 10);
+    }
+
+    @Test
+    void testSameGameKeepsOrder() throws Exception {
+        writer = new BatchWriter(database::connection, new BatchWriter.Settings(100, 300, 5000));
+        Future<?> insert = write("INSERT", 1, "e2e4");
+        Thread.sleep(30);
+        Future<?> snapshot = write("SNAPSHOT", 1, "state");
+        Thread.sleep(30);
+        Future<?> otherGame = write("INSERT", 2, "d2d4");
+        insert.get(5, TimeUnit.SECONDS);
+        snapshot.get(5, TimeUnit.SECONDS);
+        otherGame.get(5, TimeUnit.SECONDS);
+
+        // the snapshot of game 1 runs after its move; game 2's move does not have to wait for it
+        assertEquals(List.of("INSERT [1]", "SNAPSHOT [1]", "INSERT [2]"), database.executed);
+        assertEquals(1, database.commits);
+    }
+
+    @Test
+    void testMissingRowFailsOnlyThatWrite() throws Exception {
+        writer = new BatchWriter(database::connection, new BatchWriter.Settings(100, 100, 5000));
+        Future<?> missing = write("SNAPSHOT", MISSING_GAME, "state");
+        Future<?> present = write("SNAPSHOT", 1, "state");
+        present.get(5, TimeUnit.SECONDS);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> missing.get(5, TimeUnit.SECONDS));
+        assertEquals("Game not found", e.getCause().getMessage());
+    }
+
+    @Test
+    void testFailedBatchRetriedOneByOne() throws Exception {
+        writer = new BatchWriter(database::connection, new BatchWriter.Settings(100, 100, 5000));
+        Future<?> bad = write("INSERT", 1, "bad");
+        Future<?> good = write("INSERT", 2, "e2e4");
+        good.get(5, TimeUnit.SECONDS);
+        assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertTrue(database.rollbacks >= 1);
+        assertTrue(writer.stats().rolledBack() >= 1);
+    }
+
+    @Test
+    void testClosedWriterRejectsWrites() {
+        writer = new BatchWriter(database::connection, new BatchWriter.Settings(100, 1, 5000));
+        writer.close();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> write("INSERT", 1, "e2e4").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DataAccessException.class, e.getCause());
+    }
+
+    @Test
+    void testErrorFailsBatchAndKeepsFlushing() throws Exception {
+        AtomicBoolean broken = new AtomicBoolean(true);
+        writer = new BatchWriter(() -> {
+            if (broken.getAndSet(false)) {
+                throw new AssertionError("driver bug");
+            }
+            return database.connection();
+        }, new BatchWriter.Settings(100, 1, 5000));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> write("INSERT", 1, "e2e4").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DataAccessException.class, e.getCause());
+
+        write("INSERT", 2, "d2d4").get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("INSERT [2]"), database.executed);
+    }
+
+    @Test
+    void testWriteTimesOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        writer = new BatchWriter(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return database.connection();
+        }, new BatchWriter.Settings(100, 1, 100));
+        try {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> write("INSERT", 1, "e2e4").get(5, TimeUnit.SECONDS));
+            assertInstanceOf(DataAccessException.class, e.getCause());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Records each executeBatch as "SQL [gameIDs]". A row for MISSING_GAME matches nothing, and a batch holding
+     * the value "bad" fails.
+     */
+    private static class FakeDatabase {
+        final List<String> executed = new ArrayList<>();
+        int commits;
+        int rollbacks;
+
+        synchronized Connection connection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "prepareStatement" -> statement((String) args[0]);
+                        case "commit" -> {
+                            synchronized (this) {
+                                commits++;
+                            }
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            synchronized (this) {
+                                rollbacks++;
+                            }
+                            yield null;
+                        }
+                        default -> null;
+                    });
+        }
+
+        private PreparedStatement statement(String sql) {
+            Map<Integer, Object> current = new HashMap<>();
+            List<Map<Integer, Object>> rows = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "setInt", "setString" -> {
+                            current.put((Integer) args[0], args[1]);
+                            yield null;
+                        }
+                        case "addBatch" -> {
+                            rows.add(new HashMap<>(current));
+                            yield null;
+                        }
+                        case "executeBatch" -> executeBatch(sql, rows);
+                        default -> null;
+                    });
+        }
+
+        private synchronized int[] executeBatch(String sql, List<Map<Integer, Object>> rows) throws SQLException {
+            List<Object> gameIDs = new ArrayList<>();
+            int[] counts = new int[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                if ("bad".equals(rows.get(i).get(2))) {
+                    rows.clear();
+                    throw new SQLException("Data too long for column 'move'");
+                }
+                gameIDs.add(rows.get(i).get(1));
+                counts[i] = rows.get(i).get(1).equals(MISSING_GAME) ? 0 : 1;
+            }
+            rows.clear();
+            executed.add(sql + " " + gameIDs);
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package dataaccess;
+
+import model.GameData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingDataAccessTest {
+    private static final byte[] STATE = {1, 2, 3};
+
+    private CountingDataAccess backing;
+    private CachingDataAccess dataAccess;
+
+    private static class CountingDataAccess extends InMemoryDataAccess {
+        int reads;
+        int writes;
+
+        @Override
+        public GameData getGame(int gameID) throws DataAccessException {
+            reads++;
+            return super.getGame(gameID);
+        }
+
+        @Override
+        public void updateGame(GameData game) throws DataAccessException {
+            writes++;
+            super.updateGame(game);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        backing = new CountingDataAccess();
+        dataAccess = new CachingDataAccess(backing, 2);
+    }
+
+    @Test
+    void testCreatedGameServedFromCache() throws DataAccessException {
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        dataAccess.createGame(game);
+        assertEquals("Test Game", dataAccess.getGame(game.getGameID()).getGameName());
+        assertEquals("Test Game", dataAccess.getGame(game.getGameID()).getGameName());
+        assertEquals(0, backing.reads);
+        assertEquals(2, dataAccess.getHits());
+    }
+
+    @Test
+    void testUpdateWritesThrough() throws DataAccessException {
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        dataAccess.createGame(game);
+        GameData fetched = dataAccess.getGame(game.getGameID());
+        fetched.setWhiteUsername("user1");
+        assertNull(dataAccess.getGame(game.getGameID()).getWhiteUsername());
+
+        dataAccess.updateGame(fetched);
+        assertEquals(1, backing.writes);
+        assertEquals("user1", backing.getGameById(game.getGameID()).getWhiteUsername());
+        assertEquals("user1", dataAccess.getGame(game.getGameID()).getWhiteUsername());
+    }
+
+    @Test
+    void testMissLoadsOnce() throws DataAccessException {
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        backing.createGame(game);
+        dataAccess.getGame(game.getGameID());
+        dataAccess.getGame(game.getGameID());
+        assertEquals(1, backing.reads);
+        assertEquals(1, dataAccess.getMisses());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvicted() throws DataAccessException {
+        GameData first = new GameData(0, "First", null, null, STATE);
+        GameData second = new GameData(0, "Second", null, null, STATE);
+        GameData third = new GameData(0, "Third", null, null, STATE);
+        dataAccess.createGame(first);
+        dataAccess.createGame(second);
+        dataAccess.getGame(first.getGameID());
+        dataAccess.createGame(third);
+
+        assertEquals(2, dataAccess.size());
+        assertEquals(1, dataAccess.getEvictions());
+        dataAccess.getGame(first.getGameID());
+        assertEquals(0, backing.reads);
+        dataAccess.getGame(second.getGameID());
+        assertEquals(1, backing.reads);
+    }
+
+    @Test
+    void testClearInvalidates() throws DataAccessException {
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        dataAccess.createGame(game);
+        dataAccess.clear();
+        assertEquals(0, dataAccess.size());
+        assertThrows(DataAccessException.class, () -> dataAccess.getGame(game.getGameID()));
+    }
+
+    @Test
+    void testFailedUpdateInvalidates() throws DataAccessException {
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        dataAccess.createGame(game);
+        GameData missing = new GameData(99, "Missing", null, null, STATE);
+        assertThrows(DataAccessException.class, () -> dataAccess.updateGame(missing));
+        assertEquals(1, dataAccess.size());
+    }
+
+    @Test
+    void testConcurrentUpdatesLeaveCacheMatchingDelegate() throws Exception {
+        // a slow delegate widens the gap between each write and its cache update
+        InMemoryDataAccess slow = new InMemoryDataAccess() {
+            @Override
+            public void updateGame(GameData game) throws DataAccessException {
+                super.updateGame(game);
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        CachingDataAccess cache = new CachingDataAccess(slow, 2);
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        cache.createGame(game);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    String player = "user" + i;
+                    futures.add(executor.submit(() -> {
+                        cache.updateGame(new GameData(game.getGameID(), "Test Game", player, null, STATE));
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(5, TimeUnit.SECONDS);
+                }
+                assertEquals(slow.getGame(game.getGameID()).getWhiteUsername(),
+                        cache.getGame(game.getGameID()).getWhiteUsername());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testInvalidateDuringLoadKeepsStaleRowOut() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryDataAccess blocking = new InMemoryDataAccess() {
+            @Override
+            public GameData getGame(int gameID) throws DataAccessException {
+                GameData game = super.getGame(gameID);
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return game;
+            }
+        };
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        blocking.createGame(game);
+        CachingDataAccess cache = new CachingDataAccess(blocking, 2);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<GameData> load = executor.submit(() -> cache.getGame(game.getGameID()));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            cache.invalidate(game.getGameID());
+            release.countDown();
+            load.get(5, TimeUnit.SECONDS);
+            assertEquals(0, cache.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
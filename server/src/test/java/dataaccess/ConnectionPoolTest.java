@@ -0,0 +1,150 @@
+package dataaccess;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+    private final List<FakeConnection> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        opened.clear();
+    }
+
+    private ConnectionPool pool(int min, int max, long acquireTimeoutMillis, long validationIntervalMillis) {
+        return new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            opened.add(fake);
+            return fake.proxy();
+        }, new ConnectionPool.Settings(min, max, 60000, acquireTimeoutMillis, validationIntervalMillis, "SELECT 1"));
+    }
+
+    @Test
+    void testConnectionReused() throws SQLException {
+        ConnectionPool pool = pool(0, 2, 100, 60000);
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(1, opened.size());
+        assertFalse(opened.get(0).closed);
+        ConnectionPool.Stats stats = pool.stats();
+        assertEquals(2, stats.acquired());
+        assertEquals(1, stats.idle());
+        assertEquals(0, stats.active());
+    }
+
+    @Test
+    void testFillOpensMinimum() {
+        ConnectionPool pool = pool(3, 5, 100, 60000);
+        pool.fill();
+        assertEquals(3, opened.size());
+        assertEquals(3, pool.stats().idle());
+    }
+
+    @Test
+    void testAcquireTimesOutAtMaxSize() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 50, 60000);
+        try (Connection ignored = pool.borrow()) {
+            assertThrows(SQLException.class, pool::borrow);
+        }
+        assertEquals(1, pool.stats().timeouts());
+        try (Connection conn = pool.borrow()) {
+            assertNotNull(conn);
+        }
+    }
+
+    @Test
+    void testReturnedConnectionUnusable() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 100, 60000);
+        Connection conn = pool.borrow();
+        conn.close();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::createStatement);
+        assertEquals(1, pool.stats().idle());
+    }
+
+    @Test
+    void testInvalidConnectionReplaced() throws SQLException {
+        ConnectionPool pool = pool(0, 2, 100, 0);
+        pool.borrow().close();
+        opened.get(0).broken = true;
+        try (Connection ignored = pool.borrow()) {
+            assertEquals(2, opened.size());
+        }
+        assertTrue(opened.get(0).closed);
+        assertEquals(1, pool.stats().validationFailures());
+    }
+
+    @Test
+    void testUncommittedWorkRolledBack() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 100, 60000);
+        try (Connection conn = pool.borrow()) {
+            conn.setAutoCommit(false);
+        }
+        assertTrue(opened.get(0).rolledBack);
+        assertTrue(opened.get(0).autoCommit);
+    }
+
+    @Test
+    void testCloseIdle() throws SQLException {
+        ConnectionPool pool = pool(0, 2, 100, 60000);
+        pool.borrow().close();
+        pool.closeIdle();
+        assertTrue(opened.get(0).closed);
+        assertEquals(0, pool.stats().total());
+        pool.borrow().close();
+        assertEquals(2, opened.size());
+    }
+
+    private static class FakeConnection {
+        boolean closed;
+        boolean broken;
+        boolean autoCommit = true;
+        boolean rolledBack;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "getAutoCommit" -> autoCommit;
+                        case "setAutoCommit" -> {
+                            autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rolledBack = true;
+                            yield null;
+                        }
+                        case "createStatement" -> statement();
+                        default -> null;
+                    });
+        }
+
+        private Statement statement() {
+            return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("execute") && broken) {
+                            throw new SQLException("Communications link failure");
+                        }
+                        return method.getReturnType() == boolean.class ? Boolean.TRUE : null;
+                    });
+        }
+    }
+}
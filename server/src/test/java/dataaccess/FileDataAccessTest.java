@@ -0,0 +1,344 @@
+package dataaccess;
+
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileDataAccessTest {
+    private static final byte[] STATE = {1, 2, 3};
+    private static final byte[] SNAPSHOT = {4, 5, 6};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecoversFromLogAfterCrash() throws Exception {
+        FileDataAccess store = new FileDataAccess(directory);
+        store.createUser(new UserData("user1", "password", "user1@example.com"));
+        store.createAuth(new AuthData("token1", "user1"));
+        store.createAuth(new AuthData("token2", "user1"));
+        store.deleteAuth("token2");
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        store.createGame(game);
+        game.setWhiteUsername("user1");
+        store.updateGame(game);
+        store.appendMoves(game.getGameID(), List.of("e2e4", "e7e5"));
+        store.abandon();
+
+        FileDataAccess recovered = new FileDataAccess(directory);
+        assertEquals("user1@example.com", recovered.getUser("user1").getEmail());
+        assertEquals("user1", recovered.getAuth("token1").getUsername());
+        assertThrows(DataAccessException.class, () -> recovered.getAuth("token2"));
+        assertEquals("user1", recovered.getGame(game.getGameID()).getWhiteUsername());
+        assertEquals(List.of("e2e4", "e7e5"), recovered.getMovesSinceSnapshot(game.getGameID()));
+        assertEquals(1, recovered.getLatestGameID());
+
+        // IDs keep counting from where the last run stopped
+        GameData next = new GameData(0, "Next Game", null, null, STATE);
+        recovered.createGame(next);
+        assertEquals(2, next.getGameID());
+        recovered.close();
+    }
+
+    @Test
+    void testCloseCompactsLog() throws Exception {
+        FileDataAccess store = new FileDataAccess(directory);
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        store.createGame(game);
+        store.appendMoves(game.getGameID(), List.of("e2e4"));
+        store.saveSnapshot(game.getGameID(), SNAPSHOT);
+        store.appendMoves(game.getGameID(), List.of("e7e5"));
+        store.close();
+        assertEquals(0, latestSegment().toFile().length());
+        assertThrows(DataAccessException.class, () -> store.appendMoves(game.getGameID(), List.of("g1f3")));
+
+        FileDataAccess reopened = new FileDataAccess(directory);
+        assertArrayEquals(SNAPSHOT, reopened.getGame(game.getGameID()).getGameState());
+        assertEquals(List.of("e7e5"), reopened.getMovesSinceSnapshot(game.getGameID()));
+        reopened.close();
+    }
+
+    @Test
+    void testReplaysLogOnTopOfSnapshot() throws Exception {
+        FileDataAccess store = new FileDataAccess(directory);
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        store.createGame(game);
+        for (int i = 0; i < 10; i++) {
+            store.appendMoves(game.getGameID(), List.of("move" + i));
+        }
+        store.compact();
+        for (int i = 10; i < 15; i++) {
+            store.appendMoves(game.getGameID(), List.of("move" + i));
+        }
+        store.abandon();
+
+        FileDataAccess recovered = new FileDataAccess(directory);
+        List<String> moves = recovered.getMovesSinceSnapshot(game.getGameID());
+        assertEquals(15, moves.size());
+        assertEquals("move14", moves.get(14));
+        recovered.close();
+    }
+
+    @Test
+    void testTornRecordIsDiscarded() throws Exception {
+        FileDataAccess store = new FileDataAccess(directory);
+        store.createUser(new UserData("user1", "password", "user1@example.com"));
+        store.createUser(new UserData("user2", "password", "user2@example.com"));
+        store.abandon();
+
+        // lose the end of the last record, as a crash in the middle of a write would
+        try (FileChannel log = FileChannel.open(latestSegment(), StandardOpenOption.WRITE)) {
+            log.truncate(log.size() - 5);
+        }
+
+        FileDataAccess recovered = new FileDataAccess(directory);
+        assertEquals("user1", recovered.getUser("user1").getUsername());
+        assertThrows(DataAccessException.class, () -> recovered.getUser("user2"));
+        recovered.createUser(new UserData("user3", "password", "user3@example.com"));
+        recovered.abandon();
+
+        FileDataAccess again = new FileDataAccess(directory);
+        assertEquals("user3", again.getUser("user3").getUsername());
+        again.close();
+    }
+
+    @Test
+    void testFailedChangeIsNotLogged() throws Exception {
+        FileDataAccess store = new FileDataAccess(directory);
+        store.createUser(new UserData("user1", "password", "user1@example.com"));
+        assertThrows(DataAccessException.class,
+                () -> store.createUser(new UserData("user1", "other", "other@example.com")));
+        assertEquals(1, store.getRecordsWritten());
+        store.abandon();
+
+        FileDataAccess recovered = new FileDataAccess(directory);
+        assertEquals("password", recovered.getUser("user1").getPassword());
+        recovered.close();
+    }
+
+    @Test
+    void testFailedAppendIsCutOff() throws Exception {
+        List<FailingChannel> channels = new ArrayList<>();
+        FileDataAccess store = new FileDataAccess(directory, FileDataAccess.DEFAULT_SNAPSHOT_INTERVAL, path -> {
+            FailingChannel channel = new FailingChannel(path);
+            channels.add(channel);
+            return channel;
+        });
+        store.createUser(new UserData("user1", "password", "user1@example.com"));
+        channels.get(0).failNextWrite = true;
+        assertThrows(DataAccessException.class,
+                () -> store.createUser(new UserData("user2", "password", "user2@example.com")));
+        // memory never saw the change the log lost
+        assertThrows(DataAccessException.class, () -> store.getUser("user2"));
+        store.createUser(new UserData("user3", "password", "user3@example.com"));
+        store.abandon();
+
+        FileDataAccess recovered = new FileDataAccess(directory);
+        assertEquals("user1", recovered.getUser("user1").getUsername());
+        assertThrows(DataAccessException.class, () -> recovered.getUser("user2"));
+        assertEquals("user3", recovered.getUser("user3").getUsername());
+        recovered.close();
+    }
+
+    @Test
+    void testStoreFailsWhenTornAppendStays() throws Exception {
+        List<FailingChannel> channels = new ArrayList<>();
+        FileDataAccess store = new FileDataAccess(directory, FileDataAccess.DEFAULT_SNAPSHOT_INTERVAL, path -> {
+            FailingChannel channel = new FailingChannel(path);
+            channels.add(channel);
+            return channel;
+        });
+        store.createUser(new UserData("user1", "password", "user1@example.com"));
+        channels.get(0).failNextWrite = true;
+        channels.get(0).failTruncate = true;
+        assertThrows(DataAccessException.class,
+                () -> store.createUser(new UserData("user2", "password", "user2@example.com")));
+        // recovery would stop at the torn record, so nothing may be acknowledged after it
+        assertThrows(DataAccessException.class,
+                () -> store.createUser(new UserData("user3", "password", "user3@example.com")));
+        store.abandon();
+
+        FileDataAccess recovered = new FileDataAccess(directory);
+        assertEquals("user1", recovered.getUser("user1").getUsername());
+        assertThrows(DataAccessException.class, () -> recovered.getUser("user3"));
+        recovered.close();
+    }
+
+    @Test
+    void testConcurrentWritesShareSyncs() throws Exception {
+        FileDataAccess store = new FileDataAccess(directory, 50);
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        store.createGame(game);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            futures.add(executor.submit(() -> {
+                store.appendMoves(game.getGameID(), List.of("e2e4"));
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(401, store.getRecordsWritten());
+        assertTrue(store.getSyncs() <= store.getRecordsWritten());
+        store.abandon();
+
+        FileDataAccess recovered = new FileDataAccess(directory);
+        assertEquals(400, recovered.getMovesSinceSnapshot(game.getGameID()).size());
+        recovered.close();
+    }
+
+    @Test
+    void testDirectoryInUse() throws DataAccessException, IOException {
+        FileDataAccess store = new FileDataAccess(directory);
+        assertThrows(DataAccessException.class, () -> new FileDataAccess(directory));
+        store.abandon();
+    }
+
+    private Path latestSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().matches("wal-\\d+\\.log"))
+                    .max(Comparator.comparingLong(path -> Long.parseLong(path.getFileName().toString()
+                            .replaceAll("\\D", ""))))
+                    .orElseThrow();
+        }
+    }
+
+    /**
+     * A segment whose next write can be made to fail halfway through, as a full disk would.
+     */
+    private static class FailingChannel extends FileChannel {
+        private final FileChannel file;
+        boolean failNextWrite;
+        boolean failTruncate;
+
+        FailingChannel(Path path) throws IOException {
+            file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failNextWrite) {
+                failNextWrite = false;
+                ByteBuffer half = src.duplicate();
+                half.limit(src.position() + src.remaining() / 2);
+                file.write(half);
+                throw new IOException("No space left on device");
+            }
+            return file.write(src);
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failTruncate) {
+                throw new IOException("Input/output error");
+            }
+            file.truncate(size);
+            return this;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return file.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return file.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return file.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return file.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            file.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return file.size();
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            file.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return file.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return file.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return file.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return file.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return file.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return file.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return file.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            file.close();
+        }
+    }
+}
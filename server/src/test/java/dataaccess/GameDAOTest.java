@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 class GameDAOTest {
+    private static final byte[] STATE = {1, 2, 3};
     private DataAccessInterface dataAccess;
 
     @BeforeEach
@@ -16,7 +17,7 @@ class GameDAOTest {
 
     @Test
     void testCreateGameSuccess() throws DataAccessException {
-        GameData game = new GameData(0, "Test Game", null, null, "gameState");
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
         dataAccess.createGame(game);
         GameData fetchedGame = dataAccess.getGame(game.getGameID());
         assertNotNull(fetchedGame);
@@ -25,8 +26,8 @@ class GameDAOTest {
 
     @Test
     void testCreateGameFail() {
-        GameData game1 = new GameData(0, "Test Game", null, null, "gameState");
-        GameData game2 = new GameData(0, "Test Game", null, null, "gameState");
+        GameData game1 = new GameData(0, "Test Game", null, null, STATE);
+        GameData game2 = new GameData(0, "Test Game", null, null, STATE);
         assertThrows(DataAccessException.class, () -> {
             dataAccess.createGame(game1);
             dataAccess.createGame(game2);
@@ -35,7 +36,7 @@ class GameDAOTest {
 
     @Test
     void testGetGameSuccess() throws DataAccessException {
-        GameData game = new GameData(0, "Test Game", null, null, "gameState");
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
         dataAccess.createGame(game);
         GameData fetchedGame = dataAccess.getGame(game.getGameID());
         assertNotNull(fetchedGame);
@@ -50,7 +51,7 @@ class GameDAOTest {
 
     @Test
     void testClearSuccess() throws DataAccessException {
-        GameData game = new GameData(0, "Test Game", null, null, "gameState");
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
         dataAccess.createGame(game);
         dataAccess.clear();
         assertThrows(DataAccessException.class, () -> {
@@ -60,17 +61,17 @@ class GameDAOTest {
 
     @Test
     void testUpdateGameSuccess() throws DataAccessException {
-        GameData game = new GameData(0, "Test Game", null, null, "gameState");
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
         dataAccess.createGame(game);
-        game.setGameState("newState");
+        game.setGameState(new byte[]{7});
         dataAccess.updateGame(game);
         GameData updatedGame = dataAccess.getGame(game.getGameID());
-        assertEquals("newState", updatedGame.getGameState());
+        assertArrayEquals(new byte[]{7}, updatedGame.getGameState());
     }
 
     @Test
     void testUpdateGameFail() {
-        GameData game = new GameData(999, "Non-existent Game", null, null, "gameState");
+        GameData game = new GameData(999, "Non-existent Game", null, null, STATE);
         assertThrows(DataAccessException.class, () -> {
             dataAccess.updateGame(game);
         });
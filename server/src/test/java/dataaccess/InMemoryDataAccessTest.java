@@ -0,0 +1,135 @@
+package dataaccess;
+
+import model.AuthData;
+import model.GameData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryDataAccessTest {
+    private static final byte[] STATE = {1, 2, 3};
+    private static final byte[] SNAPSHOT = {4, 5, 6};
+    private static final int THREADS = 8;
+
+    private InMemoryDataAccess dataAccess;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        dataAccess = new InMemoryDataAccess();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    private void runConcurrently(int tasks, Task task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                task.run(index);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private interface Task {
+        void run(int index) throws Exception;
+    }
+
+    @Test
+    void testConcurrentCreateGameSameName() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        runConcurrently(100, index -> {
+            try {
+                dataAccess.createGame(new GameData(0, "Tournament " + (index % 10), null, null, STATE));
+                created.incrementAndGet();
+            } catch (DataAccessException e) {
+                assertEquals("Game with this name already exists", e.getMessage());
+            }
+        });
+        assertEquals(10, created.get());
+        assertEquals(10, dataAccess.listGames().size());
+        assertEquals(10, dataAccess.getLatestGameID());
+    }
+
+    @Test
+    void testConcurrentAuthTokens() throws Exception {
+        runConcurrently(200, index -> dataAccess.createAuth(new AuthData("token" + index, "user" + (index % 4))));
+        dataAccess.deleteAuthByUsername("user0");
+        for (int i = 0; i < 200; i++) {
+            String token = "token" + i;
+            if (i % 4 == 0) {
+                assertThrows(DataAccessException.class, () -> dataAccess.getAuth(token));
+            } else {
+                assertEquals("user" + (i % 4), dataAccess.getAuth(token).getUsername());
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentAppendMoves() throws Exception {
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        dataAccess.createGame(game);
+        runConcurrently(400, index -> dataAccess.appendMoves(game.getGameID(), List.of("e2e4")));
+        assertEquals(400, dataAccess.getMovesSinceSnapshot(game.getGameID()).size());
+        dataAccess.saveSnapshot(game.getGameID(), SNAPSHOT);
+        assertTrue(dataAccess.getMovesSinceSnapshot(game.getGameID()).isEmpty());
+        assertArrayEquals(SNAPSHOT, dataAccess.getGame(game.getGameID()).getGameState());
+    }
+
+    @Test
+    void testCompareAndSetGame() throws DataAccessException {
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        dataAccess.createGame(game);
+
+        GameData first = dataAccess.getGame(game.getGameID());
+        GameData second = dataAccess.getGame(game.getGameID());
+        first.setWhiteUsername("user1");
+        second.setWhiteUsername("user2");
+        assertTrue(dataAccess.compareAndSetGame(game, first));
+        assertFalse(dataAccess.compareAndSetGame(game, second));
+        assertEquals("user1", dataAccess.getGame(game.getGameID()).getWhiteUsername());
+    }
+
+    @Test
+    void testConcurrentCompareAndSetLosesNoUpdates() throws Exception {
+        GameData game = new GameData(0, "Test Game", null, null, new byte[]{0, 0});
+        dataAccess.createGame(game);
+        // every task counts once in the game state, retrying until its update is not overtaken
+        runConcurrently(400, index -> {
+            while (true) {
+                GameData current = dataAccess.getGame(game.getGameID());
+                int count = ((current.getGameState()[0] & 0xFF) << 8) | (current.getGameState()[1] & 0xFF);
+                GameData updated = new GameData(current.getGameID(), current.getGameName(), null, null,
+                        new byte[]{(byte) ((count + 1) >> 8), (byte) (count + 1)});
+                if (dataAccess.compareAndSetGame(current, updated)) {
+                    return;
+                }
+            }
+        });
+        byte[] state = dataAccess.getGame(game.getGameID()).getGameState();
+        assertEquals(400, ((state[0] & 0xFF) << 8) | (state[1] & 0xFF));
+    }
+
+    @Test
+    void testReturnedGameIsCopy() throws DataAccessException {
+        GameData game = new GameData(0, "Test Game", null, null, STATE);
+        dataAccess.createGame(game);
+        dataAccess.getGame(game.getGameID()).setWhiteUsername("user1");
+        game.setBlackUsername("user2");
+        assertNull(dataAccess.getGame(game.getGameID()).getWhiteUsername());
+        assertNull(dataAccess.getGame(game.getGameID()).getBlackUsername());
+    }
+}
@@ -48,4 +48,53 @@ class AuthServiceTest {
         authService.deleteAuth("token123");
         assertThrows(DataAccessException.class, () -> dataAccess.getAuth("token123"));
     }
+
+    @Test
+    void testValidatedTokenServedFromCache() throws DataAccessException {
+        dataAccess.createAuth(new AuthData("token123", "user1"));
+        authService.validateAuthToken("token123");
+        authService.validateAuthToken("token123");
+        assertEquals(1, authService.getMisses());
+        assertEquals(1, authService.getHits());
+    }
+
+    @Test
+    void testDeleteInvalidatesCache() throws DataAccessException {
+        dataAccess.createAuth(new AuthData("token123", "user1"));
+        dataAccess.createAuth(new AuthData("token456", "user2"));
+        dataAccess.createAuth(new AuthData("token789", "user2"));
+        authService.validateAuthToken("token123");
+        authService.validateAuthToken("token456");
+        authService.validateAuthToken("token789");
+
+        authService.deleteAuth("token123");
+        authService.deleteAuthByUsername("user2");
+        assertThrows(DataAccessException.class, () -> authService.validateAuthToken("token123"));
+        assertThrows(DataAccessException.class, () -> authService.validateAuthToken("token456"));
+        assertThrows(DataAccessException.class, () -> authService.validateAuthToken("token789"));
+    }
+
+    @Test
+    void testLogoutInvalidatesCache() throws DataAccessException {
+        UserService userService = new UserService(dataAccess, authService);
+        AuthData auth = userService.register(new model.UserData("user1", "password", "email@example.com"));
+        assertEquals("user1", authService.validateAuthToken(auth.getAuthToken()));
+        userService.logout(auth.getAuthToken());
+        assertThrows(DataAccessException.class, () -> authService.validateAuthToken(auth.getAuthToken()));
+    }
+
+    @Test
+    void testCacheBounds() throws Exception {
+        AuthService bounded = new AuthService(dataAccess, 1, 20);
+        dataAccess.createAuth(new AuthData("token123", "user1"));
+        dataAccess.createAuth(new AuthData("token456", "user2"));
+        bounded.validateAuthToken("token123");
+        bounded.validateAuthToken("token456");
+        assertEquals(1, bounded.getCacheSize());
+
+        Thread.sleep(40);
+        bounded.validateAuthToken("token456");
+        assertEquals(0, bounded.getHits());
+        assertEquals(3, bounded.getMisses());
+    }
 }
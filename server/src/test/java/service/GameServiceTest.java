@@ -1,12 +1,18 @@
 package service;
 
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
 import dataaccess.DataAccessException;
 import dataaccess.InMemoryDataAccess;
 import model.GameData;
 import org.junit.jupiter.api.BeforeEach;
+import requests.ListGamesRequest;
+import results.ListGamesResult;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -81,4 +87,139 @@ class GameServiceTest {
             fail("Exception should not be thrown: " + e.getMessage());
         }
     }
+
+    @Test
+    void testProcessMoveWritesThroughByDefault() throws Exception {
+        GameData game = gameService.createGame("Test Game");
+        gameService.processMove(game.getGameID(), new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        assertEquals(List.of("e2e4"), dataAccess.getMovesSinceSnapshot(game.getGameID()));
+        assertEquals(ChessGame.TeamColor.BLACK, new GameService(dataAccess).loadGame(game.getGameID()).getTeamTurn());
+    }
+
+    @Test
+    void testWriteBehindCoalescesMoves() throws Exception {
+        GameService writeBehind = new GameService(dataAccess, 60000);
+        GameData game = writeBehind.createGame("Test Game");
+
+        writeBehind.processMove(game.getGameID(), new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        writeBehind.processMove(game.getGameID(), new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        assertTrue(dataAccess.getMovesSinceSnapshot(game.getGameID()).isEmpty());
+        assertEquals(ChessGame.TeamColor.WHITE, writeBehind.loadGame(game.getGameID()).getTeamTurn());
+
+        writeBehind.shutdown();
+        assertEquals(List.of("e2e4", "e7e5"), dataAccess.getMovesSinceSnapshot(game.getGameID()));
+        ChessGame reloaded = new GameService(dataAccess).loadGame(game.getGameID());
+        assertEquals(writeBehind.loadGame(game.getGameID()).getBoard(), reloaded.getBoard());
+    }
+
+    @Test
+    void testJoinKeepsPendingMoves() throws Exception {
+        GameService writeBehind = new GameService(dataAccess, 60000);
+        GameData game = writeBehind.createGame("Test Game");
+        writeBehind.processMove(game.getGameID(), new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        writeBehind.joinGame(game.getGameID(), "user1", "BLACK");
+        writeBehind.shutdown();
+
+        assertEquals("user1", dataAccess.getGame(game.getGameID()).getBlackUsername());
+        assertEquals(ChessGame.TeamColor.BLACK, new GameService(dataAccess).loadGame(game.getGameID()).getTeamTurn());
+    }
+
+    @Test
+    void testSnapshotReplacesMoveLog() throws Exception {
+        GameData game = gameService.createGame("Test Game");
+        ChessMove[] shuffle = {
+                new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null),
+                new ChessMove(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null),
+                new ChessMove(ChessPosition.of(3, 6), ChessPosition.of(1, 7), null),
+                new ChessMove(ChessPosition.of(6, 6), ChessPosition.of(8, 7), null)};
+        for (int i = 0; i < GameService.SNAPSHOT_INTERVAL + 1; i++) {
+            gameService.processMove(game.getGameID(), shuffle[i % shuffle.length]);
+        }
+
+        assertEquals(List.of("g1f3"), dataAccess.getMovesSinceSnapshot(game.getGameID()));
+        ChessGame snapshot = ChessGame.fromBytes(dataAccess.getGame(game.getGameID()).getGameState());
+        assertEquals(ChessGame.TeamColor.WHITE, snapshot.getTeamTurn());
+        assertEquals(gameService.loadGame(game.getGameID()).getBoard(),
+                new GameService(dataAccess).loadGame(game.getGameID()).getBoard());
+    }
+
+    @Test
+    void testSaveGameWritesSnapshot() throws Exception {
+        GameData game = gameService.createGame("Test Game");
+        ChessGame chessGame = gameService.loadGame(game.getGameID());
+        chessGame.setGameOver(true);
+        gameService.saveGame(game.getGameID(), chessGame);
+        assertTrue(ChessGame.fromBytes(dataAccess.getGame(game.getGameID()).getGameState()).isGameOver());
+    }
+
+    @Test
+    void testFinishedGameLeavesMemory() throws Exception {
+        GameData game = gameService.createGame("Test Game");
+        ChessGame chessGame = gameService.loadGame(game.getGameID());
+        assertEquals(1, gameService.residentGames());
+        chessGame.setGameOver(true);
+        gameService.saveGame(game.getGameID(), chessGame);
+        assertEquals(0, gameService.residentGames());
+        assertTrue(gameService.loadGame(game.getGameID()).isGameOver());
+    }
+
+    @Test
+    void testReleaseWritesPendingMoves() throws Exception {
+        GameService writeBehind = new GameService(dataAccess, 60000, 0);
+        GameData game = writeBehind.createGame("Test Game");
+        writeBehind.processMove(game.getGameID(), new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        writeBehind.release(game.getGameID());
+
+        assertEquals(0, writeBehind.residentGames());
+        assertEquals(List.of("e2e4"), dataAccess.getMovesSinceSnapshot(game.getGameID()));
+        assertEquals(ChessGame.TeamColor.BLACK, writeBehind.loadGame(game.getGameID()).getTeamTurn());
+        writeBehind.shutdown();
+    }
+
+    @Test
+    void testIdleGamesLeaveMemory() throws Exception {
+        GameService idle = new GameService(dataAccess, 0, 50);
+        GameData game = idle.createGame("Test Game");
+        idle.processMove(game.getGameID(), new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (idle.residentGames() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, idle.residentGames());
+        assertEquals(ChessGame.TeamColor.BLACK, idle.loadGame(game.getGameID()).getTeamTurn());
+        idle.shutdown();
+    }
+
+    @Test
+    void testListGamesPages() throws DataAccessException {
+        for (int i = 1; i <= 5; i++) {
+            gameService.createGame("Test Game " + i);
+        }
+        ListGamesResult first = gameService.listGames(new ListGamesRequest(null, null, 2, false, null));
+        assertEquals(List.of("Test Game 1", "Test Game 2"), first.games().stream().map(GameData::getGameName).toList());
+        assertNull(first.games().get(0).getGameState());
+        assertNotNull(first.nextCursor());
+
+        ListGamesResult second = gameService.listGames(new ListGamesRequest(null, first.nextCursor(), 2, false, null));
+        ListGamesResult last = gameService.listGames(new ListGamesRequest(null, second.nextCursor(), 2, false, null));
+        assertEquals("Test Game 3", second.games().get(0).getGameName());
+        assertEquals(1, last.games().size());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void testListGamesFilters() throws DataAccessException {
+        GameData full = gameService.createGame("Full");
+        GameData open = gameService.createGame("Open");
+        gameService.createGame("Empty");
+        gameService.joinGame(full.getGameID(), "user1", "WHITE");
+        gameService.joinGame(full.getGameID(), "user2", "BLACK");
+        gameService.joinGame(open.getGameID(), "user1", "BLACK");
+
+        ListGamesResult openSeats = gameService.listGames(new ListGamesRequest(null, null, null, true, null));
+        assertEquals(List.of("Open", "Empty"), openSeats.games().stream().map(GameData::getGameName).toList());
+        ListGamesResult byPlayer = gameService.listGames(new ListGamesRequest(null, null, null, false, "user1"));
+        assertEquals(List.of("Full", "Open"), byPlayer.games().stream().map(GameData::getGameName).toList());
+        assertThrows(DataAccessException.class, () -> gameService.listGames(new ListGamesRequest(null, null, 0, false, null)));
+    }
 }
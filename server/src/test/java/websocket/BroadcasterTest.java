@@ -0,0 +1,76 @@
+package websocket;
+
+import chess.ChessGame;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.Test;
+import websocket.messages.LoadGame;
+import websocket.messages.Notification;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BroadcasterTest {
+    private final List<Session> recipients = new ArrayList<>();
+    private final List<String> sent = new ArrayList<>();
+    private final Broadcaster broadcaster = new Broadcaster((session, payload) -> {
+        recipients.add(session);
+        sent.add(payload.text());
+    });
+
+    @Test
+    void testBroadcastSharesOnePayload() {
+        GameRoom room = new GameRoom(1);
+        Session white = session(true);
+        Session black = session(true);
+        Session observer = session(true);
+        room.join(white, new GameRoom.Member("white", ChessGame.TeamColor.WHITE));
+        room.join(black, new GameRoom.Member("black", ChessGame.TeamColor.BLACK));
+        room.join(observer, new GameRoom.Member("observer", null));
+
+        Broadcaster.Payload payload = broadcaster.encode(new LoadGame(new ChessGame()));
+        broadcaster.broadcast(room, white, payload);
+
+        assertEquals(2, recipients.size());
+        assertFalse(recipients.contains(white));
+        assertSame(sent.get(0), sent.get(1));
+
+        Broadcaster.Stats stats = broadcaster.stats();
+        assertEquals(1, stats.messages());
+        assertEquals(2, stats.deliveries());
+        assertEquals(payload.bytes(), stats.bytesEncoded());
+        assertEquals(payload.bytes(), stats.bytesSaved());
+    }
+
+    @Test
+    void testSkipsClosedSessions() {
+        GameRoom room = new GameRoom(1);
+        Session open = session(true);
+        room.join(open, new GameRoom.Member("open", null));
+        room.join(session(false), new GameRoom.Member("closed", null));
+
+        broadcaster.broadcast(room, null, broadcaster.encode(new Notification("hello")));
+        assertEquals(List.of(open), recipients);
+        assertEquals(0, broadcaster.stats().bytesSaved());
+    }
+
+    @Test
+    void testUtf8Length() {
+        assertEquals(5, Broadcaster.utf8Length("hello"));
+        assertEquals(2, Broadcaster.utf8Length("é"));
+        assertEquals(3, Broadcaster.utf8Length("♔"));
+        assertEquals(4, Broadcaster.utf8Length("😀"));
+    }
+
+    private static Session session(boolean open) {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> open;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,121 @@
+package websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameMailboxesTest {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final GameMailboxes mailboxes = new GameMailboxes(executor);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testOneGameRunsInOrder() throws InterruptedException {
+        List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlapped = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            int command = i;
+            mailboxes.submit(1, () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.incrementAndGet();
+                }
+                ran.add(command);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, overlapped.get());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, ran.get(i));
+        }
+    }
+
+    @Test
+    void testGamesRunInParallel() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch otherRan = new CountDownLatch(1);
+        mailboxes.submit(1, () -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        mailboxes.submit(2, otherRan::countDown);
+
+        // game 2 does not wait for game 1
+        assertTrue(otherRan.await(5, TimeUnit.SECONDS));
+        blocked.countDown();
+    }
+
+    @Test
+    void testFailedCommandKeepsMailboxRunning() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        mailboxes.submit(1, () -> {
+            throw new IllegalStateException("bad command");
+        });
+        mailboxes.submit(1, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testErrorKeepsMailboxRunning() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        mailboxes.submit(1, () -> {
+            throw new AssertionError("bad command");
+        });
+        mailboxes.submit(1, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testRejectedDrainDoesNotWedgeGame() throws InterruptedException {
+        AtomicBoolean reject = new AtomicBoolean(true);
+        GameMailboxes rejecting = new GameMailboxes(command -> {
+            if (reject.getAndSet(false)) {
+                throw new RejectedExecutionException("shutting down");
+            }
+            executor.execute(command);
+        });
+        assertThrows(RejectedExecutionException.class, () -> rejecting.submit(1, () -> {
+        }));
+        assertEquals(0, rejecting.busyGames());
+
+        CountDownLatch done = new CountDownLatch(1);
+        rejecting.submit(1, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testIdleMailboxesRemoved() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(100);
+        for (int gameID = 0; gameID < 100; gameID++) {
+            mailboxes.submit(gameID, done::countDown);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mailboxes.busyGames() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, mailboxes.busyGames());
+    }
+}
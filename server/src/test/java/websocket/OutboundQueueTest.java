@@ -0,0 +1,127 @@
+package websocket;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.Test;
+import websocket.messages.ServerMessage.ServerMessageType;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundQueueTest {
+    private final SlowClient client = new SlowClient();
+    private final OutboundQueue.Counters counters = new OutboundQueue.Counters();
+
+    private static Broadcaster.Payload payload(ServerMessageType type, String text) {
+        return new Broadcaster.Payload(type, text, text.length(), 0);
+    }
+
+    @Test
+    void testOneWriteInFlight() {
+        OutboundQueue queue = new OutboundQueue(client.session, new OutboundQueue.Settings(8,
+                OutboundQueue.OverflowPolicy.DISCONNECT), counters);
+        queue.offer(payload(ServerMessageType.NOTIFICATION, "a"));
+        queue.offer(payload(ServerMessageType.NOTIFICATION, "b"));
+        queue.offer(payload(ServerMessageType.NOTIFICATION, "c"));
+
+        // offer returned without the client reading anything
+        assertEquals(List.of("a"), client.written);
+        assertEquals(2, queue.size());
+        client.finishWrite();
+        client.finishWrite();
+        assertEquals(List.of("a", "b", "c"), client.written);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testOverflowDropsStaleStates() {
+        OutboundQueue queue = new OutboundQueue(client.session, new OutboundQueue.Settings(2,
+                OutboundQueue.OverflowPolicy.DROP_STALE_STATES), counters);
+        queue.offer(payload(ServerMessageType.LOAD_GAME, "board1"));
+        queue.offer(payload(ServerMessageType.LOAD_GAME, "board2"));
+        queue.offer(payload(ServerMessageType.NOTIFICATION, "moved"));
+        queue.offer(payload(ServerMessageType.LOAD_GAME, "board3"));
+
+        client.finishWrite();
+        client.finishWrite();
+        assertEquals(List.of("board1", "moved", "board3"), client.written);
+        assertEquals(1, counters.dropped.sum());
+        assertFalse(client.disconnected);
+    }
+
+    @Test
+    void testOverflowWithNothingToDropDisconnects() {
+        OutboundQueue queue = new OutboundQueue(client.session, new OutboundQueue.Settings(1,
+                OutboundQueue.OverflowPolicy.DROP_STALE_STATES), counters);
+        queue.offer(payload(ServerMessageType.NOTIFICATION, "a"));
+        queue.offer(payload(ServerMessageType.NOTIFICATION, "b"));
+        queue.offer(payload(ServerMessageType.NOTIFICATION, "c"));
+
+        assertTrue(client.disconnected);
+        assertEquals(1, counters.disconnected.sum());
+        client.finishWrite();
+        assertEquals(List.of("a"), client.written);
+    }
+
+    @Test
+    void testOverflowDisconnects() {
+        OutboundQueue queue = new OutboundQueue(client.session, new OutboundQueue.Settings(1,
+                OutboundQueue.OverflowPolicy.DISCONNECT), counters);
+        queue.offer(payload(ServerMessageType.LOAD_GAME, "board1"));
+        queue.offer(payload(ServerMessageType.LOAD_GAME, "board2"));
+        queue.offer(payload(ServerMessageType.LOAD_GAME, "board3"));
+
+        assertTrue(client.disconnected);
+        assertEquals(0, counters.dropped.sum());
+    }
+
+    @Test
+    void testFailedWriteClosesQueue() {
+        OutboundQueue queue = new OutboundQueue(client.session, new OutboundQueue.Settings(8,
+                OutboundQueue.OverflowPolicy.DISCONNECT), counters);
+        queue.offer(payload(ServerMessageType.NOTIFICATION, "a"));
+        queue.offer(payload(ServerMessageType.NOTIFICATION, "b"));
+        client.pending.remove(0).writeFailed(new IllegalStateException("closed"));
+        queue.offer(payload(ServerMessageType.NOTIFICATION, "c"));
+
+        assertEquals(List.of("a"), client.written);
+        assertEquals(0, queue.size());
+    }
+
+    /**
+     * A session whose writes complete only when the test says so.
+     */
+    private static class SlowClient {
+        final List<String> written = new ArrayList<>();
+        final List<WriteCallback> pending = new ArrayList<>();
+        boolean disconnected;
+
+        final RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("sendString") && args.length == 2) {
+                        written.add((String) args[0]);
+                        pending.add((WriteCallback) args[1]);
+                    }
+                    return null;
+                });
+
+        final Session session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getRemote" -> remote;
+                    case "disconnect" -> {
+                        disconnected = true;
+                        yield null;
+                    }
+                    case "isOpen" -> !disconnected;
+                    default -> null;
+                });
+
+        void finishWrite() {
+            pending.remove(0).writeSuccess();
+        }
+    }
+}
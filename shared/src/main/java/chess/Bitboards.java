@@ -0,0 +1,99 @@
+package chess;
+
+/**
+ * Static bitboard tables and helpers. Squares are numbered 0-63 with a1 = 0, h1 = 7 and h8 = 63,
+ * so square = (row - 1) * 8 + (column - 1) in ChessPosition terms.
+ */
+final class Bitboards {
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // ray directions: north, east, north-east, north-west are "positive" (square index grows),
+    // south, west, south-west, south-east are "negative"
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}, {-1, 0}, {0, -1}, {-1, -1}, {-1, 1}};
+    private static final long[][] RAYS = new long[8][64];
+    // squares strictly between two squares on a shared rank, file or diagonal; 0 when not aligned
+    static final long[][] BETWEEN = new long[64][64];
+
+    static {
+        int[][] knightSteps = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        for (int sq = 0; sq < 64; sq++) {
+            int row = sq >>> 3;
+            int col = sq & 7;
+            for (int[] step : knightSteps) {
+                KNIGHT_ATTACKS[sq] |= bitAt(row + step[0], col + step[1]);
+            }
+            for (int[] dir : DIRECTIONS) {
+                KING_ATTACKS[sq] |= bitAt(row + dir[0], col + dir[1]);
+            }
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][sq] = bitAt(row + 1, col - 1) | bitAt(row + 1, col + 1);
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][sq] = bitAt(row - 1, col - 1) | bitAt(row - 1, col + 1);
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int r = row + DIRECTIONS[d][0];
+                int c = col + DIRECTIONS[d][1];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                    BETWEEN[sq][r * 8 + c] = RAYS[d][sq];
+                    RAYS[d][sq] |= 1L << (r * 8 + c);
+                    r += DIRECTIONS[d][0];
+                    c += DIRECTIONS[d][1];
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    private static long bitAt(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8 ? 1L << (row * 8 + col) : 0L;
+    }
+
+    static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ray(0, square, occupied) | ray(1, square, occupied) | ray(4, square, occupied) | ray(5, square, occupied);
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        return ray(2, square, occupied) | ray(3, square, occupied) | ray(6, square, occupied) | ray(7, square, occupied);
+    }
+
+    static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * Squares attacked by a piece of the given kind standing on square, given the board occupancy.
+     */
+    static long attacks(ChessPiece.PieceType type, ChessGame.TeamColor color, int square, long occupied) {
+        return switch (type) {
+            case KING -> KING_ATTACKS[square];
+            case QUEEN -> queenAttacks(square, occupied);
+            case BISHOP -> bishopAttacks(square, occupied);
+            case KNIGHT -> KNIGHT_ATTACKS[square];
+            case ROOK -> rookAttacks(square, occupied);
+            case PAWN -> PAWN_ATTACKS[color.ordinal()][square];
+        };
+    }
+
+    private static long ray(int direction, int square, long occupied) {
+        long attacks = RAYS[direction][square];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            int blocker = direction < 4 ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+            attacks ^= RAYS[direction][blocker];
+        }
+        return attacks;
+    }
+}
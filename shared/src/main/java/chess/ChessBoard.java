@@ -5,6 +5,13 @@ import java.util.Arrays;
 public class ChessBoard {
     private final ChessPiece[][] board;
 
+    // bitboard index over the board array, one long per color and piece type plus per-color occupancy.
+    // Transient so the JSON form stays the plain array; rebuilt lazily after deserialization.
+    private transient long[] pieceBitboards;
+    private transient long[] colorBitboards;
+    private transient int[] kingSquares;
+    private transient long zobristKey;
+
     public ChessBoard() {
         board = new ChessPiece[8][8];
 
@@ -14,7 +21,7 @@ public class ChessBoard {
         int row = position.getRow() - 1;
         int col = position.getColumn() - 1;
         if (isValidPosition(row, col)) {
-            board[row][col] = piece;
+            place(row, col, piece);
         }
     }
 
@@ -35,46 +42,49 @@ public class ChessBoard {
         for (int row = 0; row < 8; row++) {
             Arrays.fill(board[row], null);
         }
+        pieceBitboards = null;
+        colorBitboards = null;
+        kingSquares = null;
 
         //white pieces
-        addPiece(new ChessPosition(1,1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1,2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(1,5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(1,6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1,5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1,6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
 
         //white pawns
-        addPiece(new ChessPosition(2,1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(2,2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(2,3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(2,4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(2,5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(2,6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(2,7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(2,8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(2,1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(2,2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(2,3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(2,4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(2,5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(2,6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(2,7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(2,8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
 
         //black pieces
-        addPiece(new ChessPosition(8,1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8,2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8,5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8,6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8,5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8,6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
 
         //black pawns
-        addPiece(new ChessPosition(7,1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(7,2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(7,3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(7,4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(7,5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(7,6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(7,7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
-        addPiece(new ChessPosition(7,8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(7,1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(7,2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(7,3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(7,4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(7,5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(7,6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(7,7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        addPiece(ChessPosition.of(7,8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
     }
 
     @Override
@@ -82,14 +92,14 @@ public class ChessBoard {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ChessBoard that = (ChessBoard) o;
-        //maybe this shouldd be Arrays not objects> does it matter?
-        return Arrays.deepEquals(board, that.board);
+        // equal boards always have equal keys, so differing keys settle it without walking the squares
+        return zobristKey() == that.zobristKey() && Arrays.deepEquals(board, that.board);
     }
 
     @Override
     public int hashCode() {
-        //not sure about this, it's different in my notes
-        return Arrays.deepHashCode(board);
+        long key = zobristKey();
+        return (int) (key ^ (key >>> 32));
     }
 
     public boolean isPositionValid(ChessPosition position) {
@@ -99,13 +109,133 @@ public class ChessBoard {
 
     public void setPiece(ChessPosition position, ChessPiece piece) {
         if (isPositionValid(position)) {
-            board[position.getRow() - 1][position.getColumn() - 1] = piece;
+            place(position.getRow() - 1, position.getColumn() - 1, piece);
         }
     }
 
     public void removePiece(ChessPosition position) {
         if (isPositionValid(position)) {
-            board[position.getRow() - 1][position.getColumn() - 1] = null;
+            place(position.getRow() - 1, position.getColumn() - 1, null);
+        }
+    }
+
+    ChessPiece pieceAt(int square) {
+        return board[square >>> 3][square & 7];
+    }
+
+    void put(int square, ChessPiece piece) {
+        place(square >>> 3, square & 7, piece);
+    }
+
+    /**
+     * Zobrist hash of the pieces on the board, kept up to date as pieces are placed and removed.
+     */
+    long zobristKey() {
+        index();
+        return zobristKey;
+    }
+
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        index();
+        return pieceBitboards[bitboardIndex(color, type)];
+    }
+
+    long occupancy(ChessGame.TeamColor color) {
+        index();
+        return colorBitboards[color.ordinal()];
+    }
+
+    long occupancy() {
+        index();
+        return colorBitboards[0] | colorBitboards[1];
+    }
+
+    /**
+     * Square of the given team's king, or -1 if it has none on the board.
+     */
+    int kingSquare(ChessGame.TeamColor color) {
+        index();
+        return kingSquares[color.ordinal()];
+    }
+
+    boolean isAttacked(int square, ChessGame.TeamColor attacker) {
+        return attackersOf(square, attacker, occupancy()) != 0;
+    }
+
+    /**
+     * Pieces of the attacking team that attack square, found by looking outward from the square
+     * along knight, king, pawn and ray patterns rather than generating the attackers' moves.
+     */
+    long attackersOf(int square, ChessGame.TeamColor attacker, long occupied) {
+        index();
+        int base = attacker.ordinal() * 6;
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        // a pawn attacks square exactly when a defending pawn on square would attack the pawn's square
+        int defender = 1 - attacker.ordinal();
+        return (Bitboards.PAWN_ATTACKS[defender][square] & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Bitboards.KNIGHT_ATTACKS[square] & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (Bitboards.KING_ATTACKS[square] & pieceBitboards[base + ChessPiece.PieceType.KING.ordinal()])
+                | (Bitboards.rookAttacks(square, occupied) & (pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()] | queens))
+                | (Bitboards.bishopAttacks(square, occupied) & (pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens));
+    }
+
+    private void place(int row, int col, ChessPiece piece) {
+        if (pieceBitboards != null) {
+            int square = row * 8 + col;
+            long bit = 1L << square;
+            ChessPiece old = board[row][col];
+            if (old != null) {
+                int color = old.getTeamColor().ordinal();
+                int index = bitboardIndex(old.getTeamColor(), old.getPieceType());
+                pieceBitboards[index] &= ~bit;
+                zobristKey ^= Zobrist.PIECE_SQUARE[index][square];
+                colorBitboards[color] &= ~bit;
+                if (old.getPieceType() == ChessPiece.PieceType.KING && kingSquares[color] == square) {
+                    kingSquares[color] = lowestSquare(pieceBitboards[bitboardIndex(old.getTeamColor(), ChessPiece.PieceType.KING)]);
+                }
+            }
+            if (piece != null) {
+                int index = bitboardIndex(piece.getTeamColor(), piece.getPieceType());
+                pieceBitboards[index] |= bit;
+                zobristKey ^= Zobrist.PIECE_SQUARE[index][square];
+                colorBitboards[piece.getTeamColor().ordinal()] |= bit;
+                if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+                    kingSquares[piece.getTeamColor().ordinal()] = square;
+                }
+            }
         }
+        board[row][col] = piece;
+    }
+
+    private void index() {
+        if (pieceBitboards != null) {
+            return;
+        }
+        long[] pieces = new long[12];
+        long[] colors = new long[2];
+        long key = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = pieceAt(square);
+            if (piece != null) {
+                int index = bitboardIndex(piece.getTeamColor(), piece.getPieceType());
+                pieces[index] |= 1L << square;
+                colors[piece.getTeamColor().ordinal()] |= 1L << square;
+                key ^= Zobrist.PIECE_SQUARE[index][square];
+            }
+        }
+        zobristKey = key;
+        kingSquares = new int[]{
+                lowestSquare(pieces[bitboardIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)]),
+                lowestSquare(pieces[bitboardIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING)])};
+        colorBitboards = colors;
+        pieceBitboards = pieces;
+    }
+
+    private static int lowestSquare(long bitboard) {
+        return bitboard == 0 ? -1 : Long.numberOfTrailingZeros(bitboard);
+    }
+
+    private static int bitboardIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
     }
 }
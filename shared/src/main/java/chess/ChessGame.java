@@ -1,23 +1,35 @@
 package chess;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 public class ChessGame {
     private ChessBoard board;
     private TeamColor currentTurn;
-    private Map<ChessMove, ChessPiece> capturedPieces;
     private boolean gameOver;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    private transient UndoStack undoStack;
+    private transient MoveGenerator moveGenerator;
+    private transient MoveList moveBuffer;
 
 
     public ChessGame() {
-        this.board = new ChessBoard();
+        this(new ChessBoard(), TeamColor.WHITE);
         this.board.resetBoard();
-        this.currentTurn = TeamColor.WHITE;
-        this.capturedPieces = new HashMap<>();
+    }
+
+    ChessGame(ChessBoard board, TeamColor currentTurn) {
+        this.board = board;
+        this.currentTurn = currentTurn;
         this.gameOver = false;
+        this.halfmoveClock = 0;
+        this.fullmoveNumber = 1;
+        this.undoStack = new UndoStack(64);
+        this.moveGenerator = new MoveGenerator();
+        this.moveBuffer = new MoveList();
     }
 
 
@@ -26,21 +38,15 @@ public class ChessGame {
         if (board.isPositionValid(position)) {
             ChessPiece piece = board.getPiece(position);
             if (piece != null) {
-                moves = piece.pieceMoves(board, position);
-                moves.removeIf(move -> leavesKingInCheck(piece.getTeamColor(), move));
+                moveGenerator.setPosition(board, piece.getTeamColor());
+                moveBuffer.clear();
+                moveGenerator.addLegalMoves(Bitboards.square(position.getRow(), position.getColumn()), moveBuffer);
+                moveBuffer.addChessMovesTo(moves);
             }
         }
         return moves;
     }
 
-
-    private boolean leavesKingInCheck(TeamColor teamColor, ChessMove move) {
-        executeMove(move);
-        boolean inCheck = isInCheck(teamColor);
-        undoMove(move);
-        return inCheck;
-    }
-
     public void makeMove(ChessMove move) throws InvalidMoveException {
         ChessPosition start = move.getStartPosition();
         ChessPosition end = move.getEndPosition();
@@ -50,15 +56,23 @@ public class ChessGame {
             throw new InvalidMoveException("No piece at the start position or not your turn.");
         }
 
-        Collection<ChessMove> validMoves = validMoves(start);
-        if (!validMoves.contains(move) || leavesKingInCheck(currentTurn, move)) {
+        moveGenerator.setPosition(board, currentTurn);
+        moveBuffer.clear();
+        moveGenerator.addLegalMoves(Bitboards.square(start.getRow(), start.getColumn()), moveBuffer);
+        int index = board.isPositionValid(end) ? moveBuffer.indexOf(Move.fromChessMove(move)) : -1;
+        if (index < 0) {
             throw new InvalidMoveException("Invalid move for the piece at the given position.");
         }
 
-        executeMove(move);
-        if (isInCheck(currentTurn)) {
-            undoMove(move);
-            throw new InvalidMoveException("Move puts or leaves king in check.");
+        int legalMove = moveBuffer.get(index);
+        make(legalMove);
+        // the move stands, so its undo record is no longer needed
+        undoStack.pop();
+
+        boolean pawnMove = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        halfmoveClock = (pawnMove || Move.isCapture(legalMove)) ? 0 : halfmoveClock + 1;
+        if (currentTurn == TeamColor.BLACK) {
+            fullmoveNumber++;
         }
 
         toggleTurn();
@@ -66,8 +80,8 @@ public class ChessGame {
 
 
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = findKingPosition(teamColor);
-        return kingPosition != null && isPositionUnderAttack(kingPosition, teamColor);
+        int kingSquare = board.kingSquare(teamColor);
+        return kingSquare >= 0 && board.isAttacked(kingSquare, opponent(teamColor));
     }
 
     public boolean isInCheckmate(TeamColor teamColor) {
@@ -94,6 +108,75 @@ public class ChessGame {
         this.board = board;
     }
 
+    /**
+     * 64-bit Zobrist key of the current position (pieces and side to move). It is maintained incrementally
+     * as moves are made and is stable across JVMs, so it can be used as a cache or repetition key.
+     * This engine has no castling or en passant, so neither contributes to the key.
+     */
+    public long positionKey() {
+        long key = board.zobristKey();
+        return currentTurn == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
+    /**
+     * Parses a position in Forsyth-Edwards Notation. The halfmove and fullmove counters may be left off and
+     * default to 0 and 1. Castling and en passant fields are checked for syntax, but this engine plays
+     * neither move, so they do not change the game.
+     *
+     * @throws IllegalArgumentException if fen is not valid FEN
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        return Fen.read(fen);
+    }
+
+    /**
+     * Writes the position in Forsyth-Edwards Notation, e.g.
+     * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1" for a new game.
+     */
+    public void toFen(Appendable out) throws IOException {
+        Fen.write(this, out);
+    }
+
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        try {
+            Fen.write(this, fen);
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return fen.toString();
+    }
+
+    /**
+     * Compact binary form for storage, about 36 bytes; see {@link #fromBytes(byte[])}.
+     */
+    public byte[] toBytes() {
+        return GameCodec.encode(this);
+    }
+
+    /**
+     * Reads a game written by {@link #toBytes()}, or the UTF-8 JSON that Gson writes for a ChessGame.
+     *
+     * @throws IllegalArgumentException if data is neither
+     */
+    public static ChessGame fromBytes(byte[] data) {
+        return GameCodec.decode(data);
+    }
+
+    int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    void setMoveCounters(int halfmoveClock, int fullmoveNumber) {
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
     public TeamColor getTeamTurn() {
         return this.currentTurn;
     }
@@ -102,81 +185,42 @@ public class ChessGame {
         this.currentTurn = teamTurn;
     }
 
-    private ChessPosition findKingPosition(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == teamColor) {
-                    return position;
-                }
-            }
-        }
-        return null;
-    }
-
-    //ARE WE UNDER ATTACK?
-    private boolean isPositionUnderAttack(ChessPosition position, TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece != null && piece.getTeamColor() != teamColor) {
-                    Collection<ChessMove> moves = piece.pieceMoves(board, pos);
-                    for (ChessMove move : moves) {
-                        if (move.getEndPosition().equals(position)) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
     private boolean hasAnyValidMove(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> moves = piece.pieceMoves(board, position);
-                    for (ChessMove move : moves) {
-                        executeMove(move);
-                        boolean stillInCheck = isInCheck(teamColor);
-                        undoMove(move);
-                        if (!stillInCheck) {
-                            return true;
-                        }
-                    }
-                }
-            }
+        moveGenerator.setPosition(board, teamColor);
+        return moveGenerator.hasLegalMove();
+    }
+
+    /**
+     * Plays a move on the board and records what it takes to reverse it. Moves made here are
+     * taken back with {@link #unmake()} in last-in, first-out order, so lookahead can go as deep
+     * as it likes without copying the board.
+     */
+    void make(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = board.pieceAt(from);
+        undoStack.push(from, to, piece, board.pieceAt(to));
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        if (promotion != null && (to < 8 || to >= 56)) {
+            piece = ChessPiece.of(piece.getTeamColor(), promotion);
         }
-        return false;
+        board.put(from, null);
+        board.put(to, piece);
     }
 
-    private void executeMove(ChessMove move) {
-        ChessPosition start = move.getStartPosition();
-        ChessPosition end = move.getEndPosition();
-        ChessPiece piece = board.getPiece(start);
-        capturedPieces.put(move, board.getPiece(end));
-        if (move.getPromotion() != null && (end.getRow() == 1 || end.getRow() == 8)) {
-            piece = new ChessPiece(piece.getTeamColor(), move.getPromotion());
-        }
-        board.setPiece(end, piece);
-        board.removePiece(start);
+    void unmake() {
+        UndoStack undo = undoStack;
+        board.put(undo.toSquare(), undo.capturedPiece());
+        board.put(undo.fromSquare(), undo.movedPiece());
+        undo.pop();
     }
 
-    private void undoMove(ChessMove move) {
-        ChessPosition start = move.getStartPosition();
-        ChessPosition end = move.getEndPosition();
-        ChessPiece piece = board.getPiece(end);
-        board.setPiece(start, piece);
-        board.setPiece(end, capturedPieces.remove(move));
+    private void toggleTurn() {
+        currentTurn = opponent(currentTurn);
     }
 
-    private void toggleTurn() {
-        currentTurn = (currentTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    private static TeamColor opponent(TeamColor teamColor) {
+        return (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     public enum TeamColor {
@@ -26,6 +26,46 @@ public class ChessMove {
         return promotion;
     }
 
+    /**
+     * Coordinate notation as used by UCI: start and end squares plus an optional promotion letter,
+     * e.g. "e2e4" or "e7e8q".
+     */
+    public String toUci() {
+        char[] text = new char[promotion == null ? 4 : 5];
+        text[0] = (char) ('a' + start.getColumn() - 1);
+        text[1] = (char) ('0' + start.getRow());
+        text[2] = (char) ('a' + end.getColumn() - 1);
+        text[3] = (char) ('0' + end.getRow());
+        if (promotion != null) {
+            text[4] = Fen.symbol(promotion);
+        }
+        return new String(text);
+    }
+
+    /**
+     * Parses a move written by {@link #toUci()}.
+     *
+     * @throws IllegalArgumentException if uci is not a move in coordinate notation
+     */
+    public static ChessMove fromUci(CharSequence uci) {
+        int length = uci.length();
+        PieceType promotion = length == 5 ? Fen.pieceType(uci.charAt(4)) : null;
+        if ((length != 4 && length != 5) || (length == 5 && (promotion == null || promotion == PieceType.KING
+                || promotion == PieceType.PAWN))) {
+            throw new IllegalArgumentException("Invalid move: " + uci);
+        }
+        return new ChessMove(square(uci, 0), square(uci, 2), promotion);
+    }
+
+    private static ChessPosition square(CharSequence uci, int offset) {
+        int col = uci.charAt(offset) - 'a' + 1;
+        int row = uci.charAt(offset + 1) - '0';
+        if (col < 1 || col > 8 || row < 1 || row > 8) {
+            throw new IllegalArgumentException("Invalid move: " + uci);
+        }
+        return ChessPosition.of(row, col);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
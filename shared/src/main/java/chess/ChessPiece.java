@@ -1,10 +1,24 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Collection;
 import java.util.ArrayList;
-import java.util.Objects;
 
+@JsonAdapter(ChessPieceAdapter.class)
 public class ChessPiece {
+    // indexed by color.ordinal() * 6 + type.ordinal()
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+    private static final long PROMOTION_RANKS = 0xFF000000000000FFL;
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal() * 6 + type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor color;
     private final PieceType type;
 
@@ -13,6 +27,13 @@ public class ChessPiece {
         this.type = type;
     }
 
+    /**
+     * Shared instance for the given color and type; pieces are immutable, so there only ever need to be twelve.
+     */
+    public static ChessPiece of(ChessGame.TeamColor color, PieceType type) {
+        return PIECES[color.ordinal() * 6 + type.ordinal()];
+    }
+
     public enum PieceType {
         KING,
         QUEEN,
@@ -40,7 +61,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(color, type);
+        return 31 * (color == null ? 0 : color.ordinal() + 1) + (type == null ? 0 : type.ordinal() + 1);
     }
 
     @Override
@@ -49,94 +70,47 @@ public class ChessPiece {
     }
 
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        switch (type) {
-            case KING -> addMovesInDirections(board, position, moves, new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}}, 1);
-            case QUEEN -> addMovesInDirections(board, position, moves, new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}}, 8);
-            case ROOK -> addMovesInDirections(board, position, moves, new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}}, 8);
-            case BISHOP -> addMovesInDirections(board, position, moves, new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}}, 8);
-            case KNIGHT -> addKnightMoves(board, position, moves);
-            case PAWN -> addPawnMoves(board, position, moves);
-        }
+        int from = Bitboards.square(position.getRow(), position.getColumn());
+        long targets = targets(board, from);
+        // sized exactly: one move per target, four for a pawn reaching the last rank
+        boolean pawn = type == PieceType.PAWN;
+        int count = Long.bitCount(targets) + (pawn ? 3 * Long.bitCount(targets & PROMOTION_RANKS) : 0);
+        MoveList list = new MoveList(count);
+        list.addTargets(from, targets, board.occupancy(opponent()), pawn);
+        Collection<ChessMove> moves = new ArrayList<>(count);
+        list.addChessMovesTo(moves);
         return moves;
     }
 
-    private void addMovesInDirections(ChessBoard board, ChessPosition position, Collection<ChessMove> moves, int[][] directions, int maxDistance) {
-        for (int[] direction : directions) {
-            ChessPosition current = new ChessPosition(position.getRow() + direction[0], position.getColumn() + direction[1]);
-            int distance = 1;
-            while (distance <= maxDistance && isWithinBounds(current)) {
-                ChessPiece target = board.getPiece(current);
-                if (target == null) {
-                    moves.add(new ChessMove(position, current, null));
-                } else if (target.getTeamColor() != color) {
-                    moves.add(new ChessMove(position, current, null));
-                    break;
-                } else {
-                    break;
-                }
-                current = new ChessPosition(current.getRow() + direction[0], current.getColumn() + direction[1]);
-                distance++;
-            }
-        }
-    }
-
-    private void addKnightMoves(ChessBoard board, ChessPosition position, Collection<ChessMove> moves) {
-        int[][] knightMoves = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
-        for (int[] move : knightMoves) {
-            ChessPosition destination = new ChessPosition(position.getRow() + move[0], position.getColumn() + move[1]);
-            if (isWithinBounds(destination)) {
-                addMoveIfValid(board, position, destination, moves);
-            }
+    /**
+     * Pseudo-legal destination squares for this piece standing on square from.
+     */
+    long targets(ChessBoard board, int from) {
+        if (type == PieceType.PAWN) {
+            return pawnTargets(board, from);
         }
+        return Bitboards.attacks(type, color, from, board.occupancy()) & ~board.occupancy(color);
     }
 
-    private void addPawnMoves(ChessBoard board, ChessPosition position, Collection<ChessMove> moves) {
-        int direction = (color == ChessGame.TeamColor.WHITE) ? 1 : -1;
-        ChessPosition oneStep = new ChessPosition(position.getRow() + direction, position.getColumn());
-        ChessPosition twoSteps = new ChessPosition(position.getRow() + 2 * direction, position.getColumn());
-        boolean startingRow = (color == ChessGame.TeamColor.WHITE && position.getRow() == 2) || (color == ChessGame.TeamColor.BLACK && position.getRow() == 7);
-
-        if (board.getPiece(oneStep) == null) {
-            addPromotionMove(position, oneStep, moves);
-            if (startingRow && board.getPiece(twoSteps) == null) {
-                moves.add(new ChessMove(position, twoSteps, null));
+    private long pawnTargets(ChessBoard board, int from) {
+        long occupied = board.occupancy();
+        long enemy = board.occupancy(opponent());
+        int step = (color == ChessGame.TeamColor.WHITE) ? 8 : -8;
+        int startingRow = (color == ChessGame.TeamColor.WHITE) ? 2 : 7;
+        long targets = Bitboards.PAWN_ATTACKS[color.ordinal()][from] & enemy;
+
+        int oneStep = from + step;
+        if (oneStep >= 0 && oneStep < 64 && (occupied & (1L << oneStep)) == 0) {
+            targets |= 1L << oneStep;
+            int twoSteps = oneStep + step;
+            if (Bitboards.row(from) == startingRow && (occupied & (1L << twoSteps)) == 0) {
+                targets |= 1L << twoSteps;
             }
         }
-
-        ChessPosition diagonalLeft = new ChessPosition(position.getRow() + direction, position.getColumn() - 1);
-        ChessPosition diagonalRight = new ChessPosition(position.getRow() + direction, position.getColumn() + 1);
-        addMoveIfEnemy(board, position, diagonalLeft, moves);
-        addMoveIfEnemy(board, position, diagonalRight, moves);
-    }
-
-    private void addPromotionMove(ChessPosition from, ChessPosition to, Collection<ChessMove> moves) {
-        boolean promotionRow = (color == ChessGame.TeamColor.WHITE && to.getRow() == 8) || (color == ChessGame.TeamColor.BLACK && to.getRow() == 1);
-        if (promotionRow) {
-            moves.add(new ChessMove(from, to, PieceType.QUEEN));
-            moves.add(new ChessMove(from, to, PieceType.ROOK));
-            moves.add(new ChessMove(from, to, PieceType.BISHOP));
-            moves.add(new ChessMove(from, to, PieceType.KNIGHT));
-        } else {
-            moves.add(new ChessMove(from, to, null));
-        }
-    }
-
-    private void addMoveIfValid(ChessBoard board, ChessPosition from, ChessPosition to, Collection<ChessMove> moves) {
-        ChessPiece target = board.getPiece(to);
-        if (target == null || target.getTeamColor() != color) {
-            moves.add(new ChessMove(from, to, null));
-        }
-    }
-
-    private void addMoveIfEnemy(ChessBoard board, ChessPosition from, ChessPosition to, Collection<ChessMove> moves) {
-        ChessPiece target = board.getPiece(to);
-        if (target != null && target.getTeamColor() != color) {
-            addPromotionMove(from, to, moves);
-        }
+        return targets;
     }
 
-    private boolean isWithinBounds(ChessPosition position) {
-        return position.getRow() >= 1 && position.getRow() <= 8 && position.getColumn() >= 1 && position.getColumn() <= 8;
+    private ChessGame.TeamColor opponent() {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
     }
 }
@@ -0,0 +1,40 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes pieces in the same {"color":..,"type":..} shape Gson's reflective adapter used,
+ * but hands back the shared {@link ChessPiece#of} instances instead of allocating one per square.
+ */
+final class ChessPieceAdapter extends TypeAdapter<ChessPiece> {
+    @Override
+    public void write(JsonWriter out, ChessPiece piece) throws IOException {
+        out.beginObject();
+        out.name("color").value(piece.getTeamColor() == null ? null : piece.getTeamColor().name());
+        out.name("type").value(piece.getPieceType() == null ? null : piece.getPieceType().name());
+        out.endObject();
+    }
+
+    @Override
+    public ChessPiece read(JsonReader in) throws IOException {
+        ChessGame.TeamColor color = null;
+        ChessPiece.PieceType type = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "color" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                case "type" -> type = ChessPiece.PieceType.valueOf(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (color == null || type == null) {
+            return new ChessPiece(color, type);
+        }
+        return ChessPiece.of(color, type);
+    }
+}
@@ -1,8 +1,18 @@
 package chess;
 
-import java.util.Objects;
+import com.google.gson.annotations.JsonAdapter;
 
+@JsonAdapter(ChessPositionAdapter.class)
 public class ChessPosition {
+    // indexed by square, (row - 1) * 8 + (col - 1)
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = new ChessPosition((square >>> 3) + 1, (square & 7) + 1);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -11,6 +21,20 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Shared instance for an on-board position; positions off the board get a fresh object.
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+            return POSITIONS[(row - 1) * 8 + (col - 1)];
+        }
+        return new ChessPosition(row, col);
+    }
+
+    static ChessPosition ofSquare(int square) {
+        return POSITIONS[square];
+    }
+
     public int getRow() {
         return row;
     }
@@ -29,7 +53,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
     }
 
     @Override
@@ -0,0 +1,201 @@
+package chess;
+
+import java.io.IOException;
+
+/**
+ * Single-pass Forsyth-Edwards Notation reader and writer for ChessGame. Reading walks the characters once and
+ * places shared ChessPiece instances straight onto the board; writing appends characters without building
+ * intermediate strings.
+ */
+final class Fen {
+    // indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final char[] BLACK_SYMBOLS = {'k', 'q', 'b', 'n', 'r', 'p'};
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Fen() {
+    }
+
+    static ChessGame read(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        int length = fen.length();
+        int i = 0;
+
+        int row = 8;
+        int col = 1;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 9 || row == 1) {
+                    throw invalid(fen, "bad rank in piece placement");
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                ChessPiece.PieceType type = pieceType(Character.toLowerCase(c));
+                if (type == null || col > 8) {
+                    throw invalid(fen, "bad piece placement");
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                board.put(Bitboards.square(row, col), ChessPiece.of(color, type));
+                col++;
+            }
+            if (col > 9) {
+                throw invalid(fen, "rank too long");
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw invalid(fen, "piece placement must cover all 8 ranks");
+        }
+
+        i = skipSpace(fen, i);
+        if (i >= length || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b')) {
+            throw invalid(fen, "side to move must be w or b");
+        }
+        ChessGame.TeamColor turn = fen.charAt(i) == 'w' ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        i++;
+
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (i < length) {
+            i = skipSpace(fen, i);
+            i = skipCastling(fen, i);
+            i = skipSpace(fen, i);
+            i = skipEnPassant(fen, i);
+            if (i < length) {
+                i = skipSpace(fen, i);
+                int start = i;
+                i = skipDigits(fen, i);
+                halfmoveClock = parseInt(fen, start, i);
+                i = skipSpace(fen, i);
+                start = i;
+                i = skipDigits(fen, i);
+                fullmoveNumber = parseInt(fen, start, i);
+            }
+        }
+        while (i < length && fen.charAt(i) == ' ') {
+            i++;
+        }
+        if (i != length) {
+            throw invalid(fen, "unexpected trailing characters");
+        }
+
+        ChessGame game = new ChessGame(board, turn);
+        game.setMoveCounters(halfmoveClock, fullmoveNumber);
+        return game;
+    }
+
+    static void write(ChessGame game, Appendable out) throws IOException {
+        ChessBoard board = game.getBoard();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.pieceAt(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char symbol = symbol(piece.getPieceType());
+                out.append(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(symbol) : symbol);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                out.append('/');
+            }
+        }
+        out.append(game.getTeamTurn() == ChessGame.TeamColor.BLACK ? " b" : " w");
+        // no castling rights or en passant square: this engine plays neither
+        out.append(" - - ");
+        appendInt(out, game.getHalfmoveClock());
+        out.append(' ');
+        appendInt(out, game.getFullmoveNumber());
+    }
+
+    static char symbol(ChessPiece.PieceType type) {
+        return BLACK_SYMBOLS[type.ordinal()];
+    }
+
+    // lower-case letter to piece type, null if it names no piece
+    static ChessPiece.PieceType pieceType(char symbol) {
+        for (int i = 0; i < BLACK_SYMBOLS.length; i++) {
+            if (BLACK_SYMBOLS[i] == symbol) {
+                return TYPES[i];
+            }
+        }
+        return null;
+    }
+
+    private static int skipSpace(CharSequence fen, int i) {
+        if (i >= fen.length() || fen.charAt(i) != ' ') {
+            throw invalid(fen, "expected a space at index " + i);
+        }
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipCastling(CharSequence fen, int i) {
+        if (i < fen.length() && fen.charAt(i) == '-') {
+            return i + 1;
+        }
+        int start = i;
+        while (i < fen.length() && "KQkq".indexOf(fen.charAt(i)) >= 0) {
+            i++;
+        }
+        if (i == start) {
+            throw invalid(fen, "castling field must be - or letters from KQkq");
+        }
+        return i;
+    }
+
+    private static int skipEnPassant(CharSequence fen, int i) {
+        if (i < fen.length() && fen.charAt(i) == '-') {
+            return i + 1;
+        }
+        if (i + 1 < fen.length()) {
+            char file = fen.charAt(i);
+            char rank = fen.charAt(i + 1);
+            if (file >= 'a' && file <= 'h' && (rank == '3' || rank == '6')) {
+                return i + 2;
+            }
+        }
+        throw invalid(fen, "en passant field must be - or a square on rank 3 or 6");
+    }
+
+    private static int skipDigits(CharSequence fen, int i) {
+        while (i < fen.length() && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parseInt(CharSequence fen, int start, int end) {
+        if (start == end || end - start > 9) {
+            throw invalid(fen, "bad move counter");
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (fen.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static void appendInt(Appendable out, int value) throws IOException {
+        if (value >= 10) {
+            appendInt(out, value / 10);
+        }
+        out.append((char) ('0' + value % 10));
+    }
+
+    private static IllegalArgumentException invalid(CharSequence fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN \"" + fen + "\": " + reason);
+    }
+}
@@ -0,0 +1,140 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Versioned binary encoding of ChessGame for storage. Version 1 is:
+ * <pre>
+ * byte 0       version (1)
+ * bytes 1-32   squares a1 to h8, two per byte, low nibble first: 0 is empty, 1 + type ordinal a white piece,
+ *              9 + type ordinal a black piece
+ * byte 33      flags: bit 0 black to move, bit 1 game over
+ * varint       halfmove clock
+ * varint       fullmove number
+ * </pre>
+ * A game is about 36 bytes. The moves played after it are kept in the game's move log, not here.
+ * <br/>
+ * Decoding also accepts the Gson JSON that games were stored as before, which always starts with '{', so old rows
+ * stay readable and are rewritten in this format the next time the game is saved.
+ */
+final class GameCodec {
+    static final byte VERSION = 1;
+    private static final int SQUARE_BYTES = 32;
+    private static final int BLACK = 8;
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int GAME_OVER = 2;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+    private static final Gson GSON = new Gson();
+
+    private GameCodec() {
+    }
+
+    static byte[] encode(ChessGame game) {
+        int halfmoveClock = game.getHalfmoveClock();
+        int fullmoveNumber = game.getFullmoveNumber();
+        byte[] out = new byte[2 + SQUARE_BYTES + varintSize(halfmoveClock) + varintSize(fullmoveNumber)];
+        out[0] = VERSION;
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.pieceAt(square);
+            if (piece != null) {
+                int code = piece.getPieceType().ordinal() + 1 + (piece.getTeamColor() == ChessGame.TeamColor.BLACK ? BLACK : 0);
+                out[1 + (square >>> 1)] |= (byte) (code << ((square & 1) << 2));
+            }
+        }
+        int flags = 0;
+        if (game.getTeamTurn() == ChessGame.TeamColor.BLACK) {
+            flags |= BLACK_TO_MOVE;
+        }
+        if (game.isGameOver()) {
+            flags |= GAME_OVER;
+        }
+        out[1 + SQUARE_BYTES] = (byte) flags;
+        int i = writeVarint(out, 2 + SQUARE_BYTES, halfmoveClock);
+        writeVarint(out, i, fullmoveNumber);
+        return out;
+    }
+
+    /**
+     * @throws IllegalArgumentException if data is neither a known version nor legacy JSON
+     */
+    static ChessGame decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Empty game state");
+        }
+        if (data[0] == '{') {
+            return decodeJson(data);
+        }
+        if (data[0] != VERSION) {
+            throw new IllegalArgumentException("Unknown game state version " + data[0]);
+        }
+        if (data.length < 2 + SQUARE_BYTES) {
+            throw new IllegalArgumentException("Truncated game state");
+        }
+
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            int code = (data[1 + (square >>> 1)] >>> ((square & 1) << 2)) & 0xF;
+            if (code != 0) {
+                int type = (code & (BLACK - 1)) - 1;
+                if (type < 0 || type >= TYPES.length) {
+                    throw new IllegalArgumentException("Bad piece code " + code + " on square " + square);
+                }
+                board.put(square, ChessPiece.of(COLORS[code >>> 3], TYPES[type]));
+            }
+        }
+        int flags = data[1 + SQUARE_BYTES];
+        ChessGame game = new ChessGame(board, (flags & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        game.setGameOver((flags & GAME_OVER) != 0);
+        long halfmoveClock = readVarint(data, 2 + SQUARE_BYTES);
+        long fullmoveNumber = readVarint(data, (int) (halfmoveClock >>> 32));
+        game.setMoveCounters((int) halfmoveClock, (int) fullmoveNumber);
+        return game;
+    }
+
+    private static ChessGame decodeJson(byte[] data) {
+        try {
+            return GSON.fromJson(new String(data, StandardCharsets.UTF_8), ChessGame.class);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Bad legacy game state", e);
+        }
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    // returns the index after the varint
+    private static int writeVarint(byte[] out, int i, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[i++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[i++] = (byte) value;
+        return i;
+    }
+
+    // the value in the low 32 bits, the index after it in the high 32 bits
+    private static long readVarint(byte[] data, int i) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (i >= data.length) {
+                throw new IllegalArgumentException("Truncated game state");
+            }
+            byte b = data[i++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return ((long) i << 32) | (value & 0xFFFFFFFFL);
+            }
+        }
+        throw new IllegalArgumentException("Bad varint in game state");
+    }
+}
@@ -0,0 +1,56 @@
+package chess;
+
+/**
+ * Packed int encoding of a move, used by the engine so generating and playing moves does not allocate.
+ * Bits 0-5 hold the from square, bits 6-11 the to square, bits 12-14 the promotion piece type
+ * (ordinal + 1, 0 for none) and the bits above that hold flags.
+ */
+final class Move {
+    static final int CAPTURE = 1 << 15;
+
+    private static final int MOVE_BITS = (1 << 15) - 1;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promotionBits = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << 6) | (promotionBits << 12) | flags;
+    }
+
+    static int from(int move) {
+        return move & 63;
+    }
+
+    static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    static ChessPiece.PieceType promotion(int move) {
+        int promotionBits = (move >>> 12) & 7;
+        return promotionBits == 0 ? null : TYPES[promotionBits - 1];
+    }
+
+    static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * Whether two encoded moves describe the same from, to and promotion, ignoring flags.
+     */
+    static boolean sameMove(int first, int second) {
+        return ((first ^ second) & MOVE_BITS) == 0;
+    }
+
+    static int fromChessMove(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        return of(Bitboards.square(start.getRow(), start.getColumn()), Bitboards.square(end.getRow(), end.getColumn()),
+                move.getPromotion(), 0);
+    }
+
+    static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.ofSquare(from(move)), ChessPosition.ofSquare(to(move)), promotion(move));
+    }
+}
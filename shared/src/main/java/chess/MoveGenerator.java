@@ -0,0 +1,112 @@
+package chess;
+
+/**
+ * Strictly legal move generation. Checkers and pinned pieces are worked out once per position in
+ * {@link #setPosition}, after which each piece's legal destinations are a handful of mask operations
+ * instead of a make / test for check / unmake round trip per pseudo-legal move.
+ */
+final class MoveGenerator {
+    private final long[] pinRays = new long[64];
+    private ChessBoard board;
+    private ChessGame.TeamColor side;
+    private ChessGame.TeamColor enemy;
+    private int kingSquare;
+    private long pinned;
+    private long evasionMask;
+
+    void setPosition(ChessBoard board, ChessGame.TeamColor side) {
+        this.board = board;
+        this.side = side;
+        this.enemy = side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        this.kingSquare = board.kingSquare(side);
+        this.pinned = 0;
+        this.evasionMask = ~0L;
+        if (kingSquare < 0) {
+            return;
+        }
+
+        long occupied = board.occupancy();
+        long checkers = board.attackersOf(kingSquare, enemy, occupied);
+        if (Long.bitCount(checkers) > 1) {
+            // double check: only the king may move
+            evasionMask = 0;
+        } else if (checkers != 0) {
+            evasionMask = checkers | Bitboards.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+        }
+
+        // enemy sliders that would see the king if our own pieces were not in the way
+        long enemies = board.occupancy(enemy);
+        long queens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Bitboards.rookAttacks(kingSquare, enemies) & (board.pieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Bitboards.bishopAttacks(kingSquare, enemies) & (board.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long between = Bitboards.BETWEEN[kingSquare][sniper];
+            long blockers = between & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & board.occupancy(side)) != 0) {
+                pinned |= blockers;
+                pinRays[Long.numberOfTrailingZeros(blockers)] = between | (1L << sniper);
+            }
+        }
+    }
+
+    /**
+     * Legal destination squares for the piece of the current side standing on square from.
+     */
+    long legalTargets(int from) {
+        ChessPiece piece = board.pieceAt(from);
+        long targets = piece.targets(board, from);
+        if (from == kingSquare) {
+            return safeKingTargets(from, targets);
+        }
+        targets &= evasionMask;
+        if ((pinned & (1L << from)) != 0) {
+            targets &= pinRays[from];
+        }
+        return targets;
+    }
+
+    void addLegalMoves(int from, MoveList moves) {
+        boolean pawn = board.pieceAt(from).getPieceType() == ChessPiece.PieceType.PAWN;
+        moves.addTargets(from, legalTargets(from), board.occupancy(enemy), pawn);
+    }
+
+    /**
+     * Fills moves with every legal move of the current side.
+     */
+    void generate(MoveList moves) {
+        long own = board.occupancy(side);
+        while (own != 0) {
+            int square = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            addLegalMoves(square, moves);
+        }
+    }
+
+    boolean hasLegalMove() {
+        long own = board.occupancy(side);
+        while (own != 0) {
+            int square = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            if (legalTargets(square) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long safeKingTargets(int from, long targets) {
+        // lift the king off the board so sliders checking it also cover the squares behind it
+        long occupied = board.occupancy() & ~(1L << from);
+        long safe = 0;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (board.attackersOf(to, enemy, occupied) == 0) {
+                safe |= 1L << to;
+            }
+        }
+        return safe;
+    }
+}
@@ -0,0 +1,84 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Reusable buffer of packed moves (see {@link Move}). Callers clear and refill the same list rather than
+ * allocating a collection per query.
+ */
+final class MoveList {
+    // no legal chess position has more than 218 moves
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * For a one-off list whose size is known up front.
+     */
+    MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return moves[index];
+    }
+
+    void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(size * 2, 8));
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * Adds a move from square from to every square in targets. Pawn moves onto the first or last rank
+     * are expanded into one move per promotion piece.
+     */
+    void addTargets(int from, long targets, long enemies, boolean pawn) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = (enemies & (1L << to)) != 0 ? Move.CAPTURE : 0;
+            if (pawn && (to < 8 || to >= 56)) {
+                add(Move.of(from, to, ChessPiece.PieceType.QUEEN, flags));
+                add(Move.of(from, to, ChessPiece.PieceType.ROOK, flags));
+                add(Move.of(from, to, ChessPiece.PieceType.BISHOP, flags));
+                add(Move.of(from, to, ChessPiece.PieceType.KNIGHT, flags));
+            } else {
+                add(Move.of(from, to, null, flags));
+            }
+        }
+    }
+
+    /**
+     * Index of the listed move matching move's from, to and promotion, or -1 if there is none.
+     */
+    int indexOf(int move) {
+        for (int i = 0; i < size; i++) {
+            if (Move.sameMove(moves[i], move)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    void addChessMovesTo(Collection<ChessMove> out) {
+        for (int i = 0; i < size; i++) {
+            out.add(Move.toChessMove(moves[i]));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft: counts the leaf nodes of the legal move tree to a fixed depth. Comparing the counts against
+ * known values checks move generation, and timing them measures its throughput.
+ * <br/>
+ * Run it from the shared module with
+ * <code>java -cp shared/target/classes:gson.jar chess.Perft [position] [depth] [--divide] [--parallel] [--api]</code>
+ * where position is one of the names in {@link #POSITIONS} or a FEN string.
+ * <br/>
+ * This engine plays no castling or en passant, so the expected counts are the published perft numbers
+ * with those moves taken out. The depths listed are the ones where such moves can only occur as leaves,
+ * which keeps the adjusted numbers exact.
+ */
+public final class Perft {
+    public static final Map<String, String> POSITIONS = Map.of(
+            "startpos", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+
+    public static final Map<String, long[]> EXPECTED = Map.of(
+            "startpos", new long[]{20, 400, 8902, 197281, 4865351},
+            "kiwipete", new long[]{46},
+            "position3", new long[]{14, 191, 2810},
+            "position4", new long[]{6, 258});
+
+    private Perft() {
+    }
+
+    /**
+     * Number of leaf nodes depth plies below the game's current position, for the side whose turn it is.
+     */
+    public static long perft(ChessGame game, int depth) {
+        return new Counter(game).count(game.getTeamTurn(), depth);
+    }
+
+    /**
+     * Same count as {@link #perft}, but walking the tree through the public validMoves API so the cost of
+     * building ChessMove collections shows up in the timing.
+     */
+    public static long perftThroughApi(ChessGame game, int depth) {
+        return countThroughApi(game, game.getTeamTurn(), depth);
+    }
+
+    /**
+     * Leaf counts below each legal root move; the values add up to {@link #perft} at the same depth.
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        MoveList moves = rootMoves(game);
+        Counter counter = new Counter(game);
+        for (int i = 0; i < moves.size(); i++) {
+            game.make(moves.get(i));
+            counts.put(Move.toChessMove(moves.get(i)), depth <= 1 ? 1 : counter.count(opponent(game.getTeamTurn()), depth - 1));
+            game.unmake();
+        }
+        return counts;
+    }
+
+    /**
+     * Splits the root moves across the pool, each subtree searched on its own copy of the game.
+     */
+    public static long parallelPerft(ChessGame game, int depth, ForkJoinPool pool) {
+        if (depth <= 1) {
+            return perft(game, depth);
+        }
+        MoveList moves = rootMoves(game);
+        List<RecursiveTask<Long>> tasks = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            tasks.add(new RecursiveTask<>() {
+                @Override
+                protected Long compute() {
+                    ChessGame copy = copyOf(game);
+                    copy.make(move);
+                    return new Counter(copy).count(opponent(game.getTeamTurn()), depth - 1);
+                }
+            });
+        }
+        return pool.submit(() -> RecursiveTask.invokeAll(tasks).stream().mapToLong(RecursiveTask::join).sum()).join();
+    }
+
+    public static void main(String[] args) {
+        String name = "startpos";
+        int depth = 5;
+        boolean divide = false;
+        boolean parallel = false;
+        boolean api = false;
+        for (String arg : args) {
+            switch (arg) {
+                case "--divide" -> divide = true;
+                case "--parallel" -> parallel = true;
+                case "--api" -> api = true;
+                default -> {
+                    if (arg.chars().allMatch(Character::isDigit)) {
+                        depth = Integer.parseInt(arg);
+                    } else {
+                        name = arg;
+                    }
+                }
+            }
+        }
+
+        ChessGame game = ChessGame.fromFen(POSITIONS.getOrDefault(name, name));
+        if (divide) {
+            long total = 0;
+            for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+                System.out.printf("%s%s: %d%n", entry.getKey().getStartPosition(), entry.getKey().getEndPosition(), entry.getValue());
+                total += entry.getValue();
+            }
+            System.out.println("total: " + total);
+            return;
+        }
+
+        for (int d = 1; d <= depth; d++) {
+            long start = System.nanoTime();
+            long nodes;
+            if (parallel) {
+                nodes = parallelPerft(game, d, ForkJoinPool.commonPool());
+            } else if (api) {
+                nodes = perftThroughApi(game, d);
+            } else {
+                nodes = perft(game, d);
+            }
+            long elapsed = Math.max(System.nanoTime() - start, 1);
+            long[] expected = EXPECTED.get(name);
+            String check = expected == null || d > expected.length ? "" : (expected[d - 1] == nodes ? " ok" : " MISMATCH, expected " + expected[d - 1]);
+            System.out.printf("depth %d: %d nodes in %.1f ms (%.0f nodes/s)%s%n", d, nodes, elapsed / 1e6, nodes * 1e9 / elapsed, check);
+        }
+    }
+
+    private static long countThroughApi(ChessGame game, ChessGame.TeamColor side, int depth) {
+        long nodes = 0;
+        long own = game.getBoard().occupancy(side);
+        while (own != 0) {
+            int square = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            for (ChessMove move : game.validMoves(ChessPosition.ofSquare(square))) {
+                if (depth == 1) {
+                    nodes++;
+                } else {
+                    game.make(Move.fromChessMove(move));
+                    nodes += countThroughApi(game, opponent(side), depth - 1);
+                    game.unmake();
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private static MoveList rootMoves(ChessGame game) {
+        MoveGenerator generator = new MoveGenerator();
+        generator.setPosition(game.getBoard(), game.getTeamTurn());
+        MoveList moves = new MoveList();
+        generator.generate(moves);
+        return moves;
+    }
+
+    private static ChessGame copyOf(ChessGame game) {
+        return ChessGame.fromFen(game.toFen());
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * Depth-first counter that reuses one move list per ply, so the search itself does not allocate.
+     */
+    private static final class Counter {
+        private final ChessGame game;
+        private final MoveGenerator generator = new MoveGenerator();
+        private MoveList[] lists = new MoveList[0];
+
+        Counter(ChessGame game) {
+            this.game = game;
+        }
+
+        long count(ChessGame.TeamColor side, int depth) {
+            if (depth <= 0) {
+                return 1;
+            }
+            if (lists.length < depth + 1) {
+                lists = new MoveList[depth + 1];
+                for (int i = 0; i < lists.length; i++) {
+                    lists[i] = new MoveList();
+                }
+            }
+            return search(side, depth);
+        }
+
+        private long search(ChessGame.TeamColor side, int depth) {
+            MoveList moves = lists[depth];
+            moves.clear();
+            generator.setPosition(game.getBoard(), side);
+            generator.generate(moves);
+            if (depth == 1) {
+                return moves.size();
+            }
+            long nodes = 0;
+            ChessGame.TeamColor next = opponent(side);
+            for (int i = 0; i < moves.size(); i++) {
+                game.make(moves.get(i));
+                nodes += search(next, depth - 1);
+                game.unmake();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Preallocated stack of undo records for ChessGame's make/unmake. Each record is stored column-wise
+ * in parallel arrays, so pushing and popping a move never allocates or hashes anything.
+ */
+final class UndoStack {
+    private int[] from;
+    private int[] to;
+    private ChessPiece[] moved;
+    private ChessPiece[] captured;
+    private int size;
+
+    UndoStack(int capacity) {
+        from = new int[capacity];
+        to = new int[capacity];
+        moved = new ChessPiece[capacity];
+        captured = new ChessPiece[capacity];
+    }
+
+    void push(int fromSquare, int toSquare, ChessPiece movedPiece, ChessPiece capturedPiece) {
+        if (size == from.length) {
+            grow();
+        }
+        from[size] = fromSquare;
+        to[size] = toSquare;
+        moved[size] = movedPiece;
+        captured[size] = capturedPiece;
+        size++;
+    }
+
+    int fromSquare() {
+        return from[size - 1];
+    }
+
+    int toSquare() {
+        return to[size - 1];
+    }
+
+    ChessPiece movedPiece() {
+        return moved[size - 1];
+    }
+
+    ChessPiece capturedPiece() {
+        return captured[size - 1];
+    }
+
+    void pop() {
+        if (size == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        size--;
+        moved[size] = null;
+        captured[size] = null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = from.length * 2;
+        from = Arrays.copyOf(from, capacity);
+        to = Arrays.copyOf(to, capacity);
+        moved = Arrays.copyOf(moved, capacity);
+        captured = Arrays.copyOf(captured, capacity);
+    }
+}
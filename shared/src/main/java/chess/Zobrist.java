@@ -0,0 +1,32 @@
+package chess;
+
+/**
+ * Zobrist keys for hashing positions. The keys come from a fixed-seed splitmix64 sequence rather than
+ * java.util.Random, so a position hashes to the same 64-bit value on every JVM and can be stored.
+ */
+final class Zobrist {
+    // indexed [color.ordinal() * 6 + type.ordinal()][square]
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        long state = 0x2545F4914F6CDD1DL;
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                state += 0x9E3779B97F4A7C15L;
+                squares[square] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,13 +1,17 @@
 package model;
 
+/**
+ * A row of the games table. gameState is the game in ChessGame's binary form; the array is never modified in
+ * place, so copies of a GameData may share it.
+ */
 public class GameData {
     private int gameID;
     private String gameName;
     private String whiteUsername;
     private String blackUsername;
-    private String gameState;
+    private byte[] gameState;
 
-    public GameData(int gameID, String gameName, String whiteUsername, String blackUsername, String gameState) {
+    public GameData(int gameID, String gameName, String whiteUsername, String blackUsername, byte[] gameState) {
         this.gameID = gameID;
         this.gameName = gameName;
         this.whiteUsername = whiteUsername;
@@ -43,11 +47,11 @@ public class GameData {
         this.blackUsername = blackUsername;
     }
 
-    public String getGameState() {
+    public byte[] getGameState() {
         return gameState;
     }
 
-    public void setGameState(String gameState) {
+    public void setGameState(byte[] gameState) {
         this.gameState = gameState;
     }
 
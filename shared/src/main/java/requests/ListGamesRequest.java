@@ -1,3 +1,11 @@
 package requests;
 
-public record ListGamesRequest(String authToken) {}
+/**
+ * A page of the game list. cursor is the nextCursor of the previous page, or null for the first page;
+ * limit, openSeats and player are optional filters.
+ */
+public record ListGamesRequest(String authToken, Integer cursor, Integer limit, boolean openSeats, String player) {
+    public ListGamesRequest(String authToken) {
+        this(authToken, null, null, false, null);
+    }
+}
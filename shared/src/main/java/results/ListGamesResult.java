@@ -3,4 +3,11 @@ package results;
 import model.GameData;
 import java.util.List;
 
-public record ListGamesResult(List<GameData> games) {}
+/**
+ * One page of games, without their game state. nextCursor fetches the following page and is null on the last one.
+ */
+public record ListGamesResult(List<GameData> games, Integer nextCursor, Integer limit) {
+    public ListGamesResult(List<GameData> games) {
+        this(games, null, null);
+    }
+}
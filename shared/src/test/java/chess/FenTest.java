@@ -0,0 +1,49 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FenTest {
+
+    @Test
+    void testStartingPosition() {
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1", new ChessGame().toFen());
+        assertEquals(new ChessGame().getBoard(), ChessGame.fromFen(new ChessGame().toFen()).getBoard());
+    }
+
+    @Test
+    void testRoundTrip() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b - - 7 23";
+        ChessGame game = ChessGame.fromFen(fen);
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(fen, game.toFen());
+    }
+
+    @Test
+    void testCountersFollowMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null));
+        game.makeMove(new ChessMove(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null));
+        assertEquals("rnbqkb1r/pppppppp/5n2/8/8/5N2/PPPPPPPP/RNBQKB1R w - - 2 2", game.toFen());
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        assertTrue(game.toFen().endsWith(" b - - 0 2"));
+    }
+
+    @Test
+    void testOptionalFields() {
+        assertEquals("8/8/8/8/8/8/8/K6k w - - 0 1", ChessGame.fromFen("8/8/8/8/8/8/8/K6k w").toFen());
+        assertEquals("8/8/8/8/8/8/8/K6k b - - 0 1", ChessGame.fromFen("8/8/8/8/8/8/8/K6k b - e3").toFen());
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(""));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8 w"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("9/8/8/8/8/8/8/8 w"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/7x w"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/8 x"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/8 w - e5 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/8 w - - 0 1 extra"));
+    }
+}
@@ -0,0 +1,65 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCodecTest {
+
+    @Test
+    void testRoundTrip() {
+        for (String fen : Perft.POSITIONS.values()) {
+            ChessGame game = ChessGame.fromFen(fen);
+            byte[] bytes = game.toBytes();
+            assertEquals(GameCodec.VERSION, bytes[0]);
+            assertEquals(game.toFen(), ChessGame.fromBytes(bytes).toFen());
+        }
+    }
+
+    @Test
+    void testSize() {
+        assertEquals(36, new ChessGame().toBytes().length);
+        assertEquals(37, ChessGame.fromFen("8/8/8/8/8/8/8/K6k b - - 99 1000").toBytes().length);
+    }
+
+    @Test
+    void testGameOverAndMovesAfterDecode() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(ChessMove.fromUci("e2e4"));
+        game.setGameOver(true);
+
+        ChessGame decoded = ChessGame.fromBytes(game.toBytes());
+        assertTrue(decoded.isGameOver());
+        assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+        assertEquals(game.positionKey(), decoded.positionKey());
+        decoded.makeMove(ChessMove.fromUci("e7e5"));
+        assertEquals(ChessGame.TeamColor.WHITE, decoded.getTeamTurn());
+    }
+
+    @Test
+    void testReadsLegacyJson() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b - - 7 23");
+        byte[] json = new Gson().toJson(game).getBytes(StandardCharsets.UTF_8);
+
+        ChessGame decoded = ChessGame.fromBytes(json);
+        assertEquals(game.toFen(), decoded.toFen());
+        decoded.makeMove(ChessMove.fromUci("e7d6"));
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(new byte[]{2, 0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(new byte[]{1, 0, 0}));
+        byte[] badPiece = new ChessGame().toBytes();
+        badPiece[1] = 0x07;
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(badPiece));
+        byte[] truncated = new byte[34];
+        truncated[0] = GameCodec.VERSION;
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(truncated));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes("{not json".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,52 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTest {
+
+    @Test
+    void testKnownCounts() {
+        for (Map.Entry<String, long[]> entry : Perft.EXPECTED.entrySet()) {
+            long[] expected = entry.getValue();
+            for (int depth = 1; depth <= Math.min(expected.length, 4); depth++) {
+                ChessGame game = ChessGame.fromFen(Perft.POSITIONS.get(entry.getKey()));
+                assertEquals(expected[depth - 1], Perft.perft(game, depth), entry.getKey() + " depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    void testPositionRestoredAfterSearch() {
+        ChessGame game = ChessGame.fromFen(Perft.POSITIONS.get("kiwipete"));
+        long key = game.positionKey();
+        ChessBoard before = ChessGame.fromFen(Perft.POSITIONS.get("kiwipete")).getBoard();
+        Perft.perft(game, 3);
+        assertEquals(key, game.positionKey());
+        assertEquals(before, game.getBoard());
+    }
+
+    @Test
+    void testApiMatchesEngine() {
+        ChessGame game = ChessGame.fromFen(Perft.POSITIONS.get("position4"));
+        assertEquals(Perft.perft(game, 3), Perft.perftThroughApi(game, 3));
+    }
+
+    @Test
+    void testDivideSumsToPerft() {
+        ChessGame game = ChessGame.fromFen(Perft.POSITIONS.get("kiwipete"));
+        long total = Perft.divide(game, 2).values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(Perft.perft(game, 2), total);
+    }
+
+    @Test
+    void testParallelMatchesSerial() {
+        ChessGame game = new ChessGame();
+        assertEquals(197281, Perft.parallelPerft(game, 4, ForkJoinPool.commonPool()));
+        assertEquals(Perft.perft(game, 3), Perft.parallelPerft(game, 3, ForkJoinPool.commonPool()));
+    }
+}